@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: BenchSources.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchSources {
+
+    // a valid program with roughly `statements` statements
+    public static List<String> program(int statements) {
+        List<String> lines = new ArrayList<>();
+        lines.add("program bench;");
+        lines.add("var alpha, beta, gamma, counter : integer; flag, done : bool; ch : char;");
+        lines.add("begin");
+        for (int i = 0; i < statements; i += 6) {
+            lines.add("  alpha := gamma * (beta + 12) - counter / 3;");
+            lines.add("  if alpha <> beta then beta := beta + 1 else gamma := gamma - 1;");
+            lines.add("  while counter < 100 do counter := counter + 1;");
+            lines.add("  repeat gamma := gamma * 2 until gamma >= 4096;");
+            lines.add("  flag := true; /* comment */");
+            lines.add("  done := false;");
+        }
+        lines.add("  alpha := 0");
+        lines.add("end.");
+        return lines;
+    }
+
+    public static final String[] NESTING_SHAPES = {"begin", "if", "while", "repeat", "parenthesis"};
+
+    // a valid program nesting one kind of statement or parentheses `depth` levels deep, a level per line
+    public static List<String> nested(String shape, int depth) {
+        List<String> lines = new ArrayList<>();
+        lines.add("program nested;");
+        lines.add("var a : integer;");
+        lines.add("begin");
+        switch (shape) {
+            case "begin":
+                for (int i = 0; i < depth; i++)
+                    lines.add("begin");
+                lines.add("a := 1");
+                for (int i = 0; i < depth; i++)
+                    lines.add("end");
+                break;
+            case "if":
+                for (int i = 0; i < depth; i++)
+                    lines.add("if a < " + i + " then");
+                lines.add("a := 1 else a := 2");
+                break;
+            case "while":
+                for (int i = 0; i < depth; i++)
+                    lines.add("while a < " + i + " do");
+                lines.add("a := a + 1");
+                break;
+            case "repeat":
+                for (int i = 0; i < depth; i++)
+                    lines.add("repeat");
+                lines.add("a := a + 1");
+                for (int i = 0; i < depth; i++)
+                    lines.add("until a > " + i);
+                break;
+            case "parenthesis":
+                lines.add("a :=");
+                for (int i = 0; i < depth; i++)
+                    lines.add("(a +");
+                lines.add("1");
+                for (int i = 0; i < depth; i++)
+                    lines.add(")");
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+        lines.add("end.");
+        return lines;
+    }
+
+    // a valid program assigning one arithmetic expression of `operators` operators, mixing precedences
+    public static List<String> expression(int operators) {
+        String[] terms = {" + a * 3", " - b / 2", " * (a - b)", " + 7"};
+        List<String> lines = new ArrayList<>();
+        lines.add("program expression;");
+        lines.add("var a, b : integer;");
+        lines.add("begin");
+        StringBuilder line = new StringBuilder("a := b");
+        for (int i = 0; i < operators; ) {
+            String term = terms[i % terms.length];
+            line.append(term);
+            i += term.equals(" + 7") ? 1 : 2;
+            if (line.length() > 100) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+        }
+        lines.add(line.toString());
+        lines.add("end.");
+        return lines;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: LexerBench.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.bench;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import net.colors_wind.compiler.lex.IdentifierPool;
+import net.colors_wind.compiler.lex.Lexer;
+import net.colors_wind.compiler.lex.LineSource;
+import net.colors_wind.compiler.lex.ListLexer;
+import net.colors_wind.compiler.lex.Token;
+import net.colors_wind.compiler.lex.TokenBuffer;
+import net.colors_wind.compiler.lex.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexes a program of about 6000 statements: token by token with both engines, into a
+ * {@link TokenBuffer}, and through the lookahead ring of {@link ListLexer} as the parser does.
+ * Run with -prof gc to compare the bytes allocated per token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LexerBench {
+
+    @State(Scope.Benchmark)
+    public static class Source {
+        final List<String> lines = BenchSources.program(6000);
+    }
+
+    @State(Scope.Thread)
+    public static class Engine {
+        @Param({"HAND_WRITTEN", "TABLE_DRIVEN"})
+        Lexer.Engine engine;
+        Lexer lexer;
+        final TokenBuffer buffer = new TokenBuffer();
+
+        @Setup
+        public void setup() {
+            lexer = Lexer.create(engine);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lookahead {
+        // tokens looked at before each next(), as the parser does before most tokens
+        @Param({"0", "1", "2"})
+        int peeks;
+        final ListLexer lexer = new ListLexer(new IdentifierPool(), new Diagnostics());
+    }
+
+    // Lexer.next() over every line
+    @Benchmark
+    public void next(Source source, Engine engine, Blackhole blackhole) {
+        Lexer lexer = engine.lexer;
+        List<String> lines = source.lines;
+        for (int i = 0; i < lines.size(); i++) {
+            lexer.input(i + 1, lines.get(i));
+            while (lexer.hasNext())
+                blackhole.consume(lexer.next());
+        }
+    }
+
+    // Lexer.tokenize(TokenBuffer) over every line
+    @Benchmark
+    public int tokenize(Source source, Engine engine) {
+        Lexer lexer = engine.lexer;
+        TokenBuffer buffer = engine.buffer;
+        List<String> lines = source.lines;
+        int tokens = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            lexer.input(i + 1, lines.get(i));
+            buffer.clear();
+            lexer.tokenize(buffer);
+            tokens += buffer.size();
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public void listLexer(Source source, Lookahead lookahead, Blackhole blackhole) {
+        ListLexer lexer = lookahead.lexer;
+        lexer.reset(LineSource.of(source.lines));
+        while (true) {
+            // nothing can be peeked past the end
+            int i = 0;
+            while (i < lookahead.peeks && lexer.peek(i).getType() != TokenType.EOF)
+                i++;
+            Token token = lexer.next();
+            if (token.getType() == TokenType.EOF)
+                return;
+            blackhole.consume(token);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: NestingBench.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.bench;
+
+import net.colors_wind.compiler.parse.CompilerContext;
+import net.colors_wind.compiler.parse.Program;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles programs nesting one kind of statement or parentheses deeply, with the tree parser,
+ * which keeps its stack on the heap, and with direct emission. Direct emission overflows the
+ * default stack from about 10^4 levels on, so it is only run at 10^3.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class NestingBench {
+    private final CompilerContext context = new CompilerContext();
+
+    @State(Scope.Benchmark)
+    public static class Deep {
+        @Param({"begin", "if", "while", "repeat", "parenthesis"})
+        String shape;
+        @Param({"1000", "10000", "100000"})
+        int depth;
+        List<String> lines;
+
+        @Setup
+        public void setup() {
+            lines = BenchSources.nested(shape, depth);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shallow {
+        @Param({"begin", "if", "while", "repeat", "parenthesis"})
+        String shape;
+        @Param({"1000"})
+        int depth;
+        List<String> lines;
+
+        @Setup
+        public void setup() {
+            lines = BenchSources.nested(shape, depth);
+        }
+    }
+
+    @Benchmark
+    public int tree(Deep deep) {
+        Program program = context.reset(deep.lines);
+        program.generate(program.parseTree());
+        return program.nextPos();
+    }
+
+    @Benchmark
+    public int direct(Shallow shallow) {
+        Program program = context.reset(shallow.lines);
+        program.parse();
+        return program.nextPos();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ParserBench.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.bench;
+
+import net.colors_wind.compiler.parse.CompilerContext;
+import net.colors_wind.compiler.parse.Program;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles with direct emission on a reused {@link CompilerContext}, as the batch mode and the
+ * server do: long and deeply parenthesized expressions and whole programs of 6 to 60000
+ * statements. Each benchmark returns the number of codes emitted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ParserBench {
+    private final CompilerContext context = new CompilerContext();
+
+    @State(Scope.Benchmark)
+    public static class Chain {
+        // operators of one expression
+        @Param({"100", "10000"})
+        int operators;
+        List<String> lines;
+
+        @Setup
+        public void setup() {
+            lines = BenchSources.expression(operators);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Nested {
+        @Param({"100", "1000"})
+        int depth;
+        List<String> lines;
+
+        @Setup
+        public void setup() {
+            lines = BenchSources.nested("parenthesis", depth);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Source {
+        @Param({"6", "600", "60000"})
+        int statements;
+        List<String> lines;
+
+        @Setup
+        public void setup() {
+            lines = BenchSources.program(statements);
+        }
+    }
+
+    @Benchmark
+    public int expressionChain(Chain chain) {
+        return parse(chain.lines);
+    }
+
+    @Benchmark
+    public int expressionNested(Nested nested) {
+        return parse(nested.lines);
+    }
+
+    @Benchmark
+    public int program(Source source) {
+        return parse(source.lines);
+    }
+
+    // a new Program per compilation, what the context saves is the difference to program
+    @Benchmark
+    public int programNewContext(Source source) {
+        Program program = new Program(source.lines);
+        program.parse();
+        return program.nextPos();
+    }
+
+    private int parse(List<String> lines) {
+        Program program = context.reset(lines);
+        program.parse();
+        return program.nextPos();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: BatchMain.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler;
+
+import net.colors_wind.compiler.cache.CompileCache;
+import net.colors_wind.compiler.cache.CompileResult;
+import net.colors_wind.compiler.lex.MappedLineSource;
+import net.colors_wind.compiler.metrics.CompilerMetrics;
+import net.colors_wind.compiler.parse.CompilerContext;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.System.out;
+
+/**
+ * Compiles many files without prompting, on a pool of workers that each reuse their own
+ * {@link CompilerContext}. The codes of a.sample go to a.icode, next to it or under the output
+ * directory, diagnostics are printed per file once it is compiled. With a {@link CompileCache},
+ * files compiled before are not parsed again.
+ */
+public class BatchMain {
+    public static final String SOURCE_SUFFIX = ".sample";
+    public static final String OUTPUT_SUFFIX = ".icode";
+
+    private final int threads;
+    private final Path outputDir;
+    private final boolean ast;
+    private final CompileCache cache;
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong codes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // results are looked up in and stored to cache unless it is null
+    public BatchMain(int threads, Path outputDir, boolean ast, CompileCache cache) {
+        this.threads = threads;
+        this.outputDir = outputDir;
+        this.ast = ast;
+        this.cache = cache;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outputDir = null;
+        boolean ast = false;
+        Path cacheDir = null;
+        long cacheSize = CompileCache.DEFAULT_MAX_BYTES;
+        boolean stats = false;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            else if ("--out".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                outputDir = Paths.get(args[++i]);
+            else if ("--ast".equalsIgnoreCase(args[i]))
+                ast = true;
+            else if ("--stats=json".equalsIgnoreCase(args[i]))
+                stats = true;
+            else if ("--cache".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                cacheDir = Paths.get(args[++i]);
+            else if ("--cache-size".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                cacheSize = Long.parseLong(args[++i]) << 20;
+            else
+                inputs.add(Paths.get(args[i]));
+        }
+        if (inputs.isEmpty()) {
+            out.println("用法: --batch [--threads N] [--out 目录] [--ast] [--cache 目录] [--cache-size MB] [--stats=json] <目录|文件...>");
+            return;
+        }
+        CompileCache cache = cacheDir == null ? null : new CompileCache(cacheDir, cacheSize);
+        CompilerMetrics.getInstance().setEnabled(stats);
+        new BatchMain(threads, outputDir, ast, cache).run(inputs);
+        if (stats)
+            out.println(CompilerMetrics.getInstance().snapshot().toJson());
+    }
+
+    public void run(List<Path> inputs) throws IOException {
+        List<Path[]> jobs = new ArrayList<>();
+        for (Path input : inputs)
+            collect(input, jobs);
+        long time = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>(jobs.size());
+            for (Path[] job : jobs)
+                results.add(pool.submit(() -> compile(job[0], job[1])));
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    failed.incrementAndGet();
+                    synchronized (System.err) {
+                        System.err.println(jobs.get(i)[0] + ":");
+                        System.err.println("编译失败: " + e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - time) / 1e9;
+        out.printf("编译 %d 个文件 (%d 个失败), %d 行, %d 条中间代码, 用时 %.3f s, %d 个线程%n",
+                jobs.size(), failed.get(), lines.get(), codes.get(), seconds, threads);
+        out.printf("%.1f 文件/s, %.0f 行/s, %.0f 代码/s%n",
+                jobs.size() / seconds, lines.get() / seconds, codes.get() / seconds);
+        if (cache != null)
+            out.printf("缓存命中 %d 次, 未命中 %d 次, 淘汰 %d 项, 缓存大小 %d KB%n",
+                    cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getSize() >> 10);
+    }
+
+    // source and output of every .sample file under input, or of input itself
+    private void collect(Path input, List<Path[]> jobs) throws IOException {
+        if (!Files.isDirectory(input)) {
+            Path dir = outputDir == null ? input.toAbsolutePath().getParent() : outputDir;
+            jobs.add(new Path[]{input, dir.resolve(outputName(input.getFileName()))});
+            return;
+        }
+        List<Path> sources;
+        try (Stream<Path> walk = Files.walk(input)) {
+            sources = walk.filter(path -> path.toString().endsWith(SOURCE_SUFFIX) && Files.isRegularFile(path))
+                    .sorted().collect(Collectors.toList());
+        }
+        for (Path source : sources) {
+            Path relative = input.relativize(source);
+            Path output = outputDir == null ? source.resolveSibling(outputName(source.getFileName()))
+                    : outputDir.resolve(relative).resolveSibling(outputName(source.getFileName()));
+            jobs.add(new Path[]{source, output});
+        }
+    }
+
+    private static String outputName(Path source) {
+        String name = source.toString();
+        if (name.endsWith(SOURCE_SUFFIX))
+            name = name.substring(0, name.length() - SOURCE_SUFFIX.length());
+        return name + OUTPUT_SUFFIX;
+    }
+
+    // returns the number of codes, -1 if the file could not be compiled
+    private int compile(Path source, Path output) throws IOException {
+        ByteBuffer buffer = MappedLineSource.mapFile(source);
+        lines.addAndGet(countLines(buffer));
+        CompileResult result = cache == null ? compileTo(buffer, output) : cache.compile(buffer, ast);
+        if (!result.getDiagnostics().isEmpty()) {
+            synchronized (System.err) {
+                System.err.println(source + ":");
+                System.err.print(result.getDiagnostics());
+            }
+        }
+        if (!result.isOk()) {
+            failed.incrementAndGet();
+            return -1;
+        }
+        if (cache != null) {
+            if (output.getParent() != null)
+                Files.createDirectories(output.getParent());
+            Files.write(output, result.getCodesText().getBytes(StandardCharsets.UTF_8));
+        }
+        codes.addAndGet(result.getCodes());
+        return result.getCodes();
+    }
+
+    // streams the codes into a temporary file that replaces output only if the source compiled
+    private CompileResult compileTo(ByteBuffer buffer, Path output) throws IOException {
+        if (output.getParent() != null)
+            Files.createDirectories(output.getParent());
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            CompileResult result;
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(temp)), false, "UTF-8")) {
+                result = CompileResult.compile(buffer, ast, out);
+                if (out.checkError())
+                    throw new IOException("写入失败: " + temp);
+            }
+            if (result.isOk()) {
+                Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+                moved = true;
+            }
+            return result;
+        } finally {
+            if (!moved)
+                Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long countLines(ByteBuffer buffer) {
+        long count = 0;
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            if (buffer.get(i) == '\n')
+                count++;
+        }
+        if (limit > buffer.position() && buffer.get(limit - 1) != '\n')
+            count++;
+        return count;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ClientMain.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler;
+
+import net.colors_wind.compiler.cache.CompileResult;
+import net.colors_wind.compiler.server.CompileClient;
+import net.colors_wind.compiler.server.CompileProtocol;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.System.out;
+
+public class ClientMain {
+
+    public static void main(String[] args) throws IOException {
+        int port = CompileProtocol.DEFAULT_PORT;
+        int repeat = 1;
+        boolean ast = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                port = Integer.parseInt(args[++i]);
+            else if ("--repeat".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                repeat = Math.max(1, Integer.parseInt(args[++i]));
+            else if ("--ast".equalsIgnoreCase(args[i]))
+                ast = true;
+            else
+                files.add(Paths.get(args[i]));
+        }
+        if (files.isEmpty()) {
+            out.println("用法: --client [--port N] [--ast] [--repeat N] <文件...>");
+            return;
+        }
+        try (CompileClient client = new CompileClient(port)) {
+            for (Path file : files) {
+                byte[] source = Files.readAllBytes(file);
+                CompileResult result = client.compile(source, ast);
+                out.println("开始分析程序: " + file.getFileName());
+                System.err.print(result.getDiagnostics());
+                if (result.isOk()) {
+                    out.println("分析程序完成, 输出中间代码:");
+                    out.print(result.getCodesText());
+                }
+                if (repeat > 1) {
+                    long time = System.nanoTime();
+                    for (int i = 1; i < repeat; i++)
+                        client.compile(source, ast);
+                    time = System.nanoTime() - time;
+                    out.printf("重复编译 %d 次, 平均延迟 %.3f ms%n", repeat - 1, time / 1e6 / (repeat - 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: GenerateMain.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler;
+
+import net.colors_wind.compiler.generator.ProgramGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static java.lang.System.out;
+
+public class GenerateMain {
+
+    public static void main(String[] args) throws IOException {
+        long seed = 0;
+        long statements = -1;
+        long size = -1;
+        int depth = -1;
+        int width = -1;
+        int variables = -1;
+        String file = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--seed".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                seed = Long.parseLong(args[++i]);
+            else if ("--statements".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                statements = Long.parseLong(args[++i]);
+            else if ("--size".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                size = parseSize(args[++i]);
+            else if ("--depth".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                depth = Integer.parseInt(args[++i]);
+            else if ("--width".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                width = Integer.parseInt(args[++i]);
+            else if ("--variables".equalsIgnoreCase(args[i]) && i + 1 < args.length)
+                variables = Integer.parseInt(args[++i]);
+            else
+                file = args[i];
+        }
+        if (file == null) {
+            out.println("用法: --generate [--seed N] [--statements N] [--size N[K|M|G]] [--depth N] [--width N] [--variables N] <文件|->");
+            return;
+        }
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        if (size >= 0) {
+            generator.setMaxBytes(size);
+            generator.setStatements(statements >= 0 ? statements : Long.MAX_VALUE);
+        } else if (statements >= 0) {
+            generator.setStatements(statements);
+        }
+        if (depth >= 0)
+            generator.setDepth(depth);
+        if (width >= 0)
+            generator.setWidth(width);
+        if (variables >= 0)
+            generator.setVariables(variables);
+        if ("-".equals(file)) {
+            generator.generate(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            return;
+        }
+        long time = System.nanoTime();
+        long bytes;
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            bytes = generator.generate(writer);
+        }
+        time = System.nanoTime() - time;
+        out.printf("生成 %s: %d 条语句, %d 字节, 用时 %.3f s%n", file, generator.getGenerated(), bytes, time / 1e9);
+    }
+
+    // 512, 64K, 10M, 1G
+    private static long parseSize(String size) {
+        String digits = size.toUpperCase();
+        int shift = 0;
+        if (digits.endsWith("K"))
+            shift = 10;
+        else if (digits.endsWith("M"))
+            shift = 20;
+        else if (digits.endsWith("G"))
+            shift = 30;
+        if (shift > 0)
+            digits = digits.substring(0, digits.length() - 1);
+        return Long.parseLong(digits) << shift;
+    }
+}
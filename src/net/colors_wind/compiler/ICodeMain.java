@@ -27,8 +27,13 @@
 
 package net.colors_wind.compiler;
 
+import net.colors_wind.compiler.lex.MappedLineSource;
+import net.colors_wind.compiler.parse.CompilerContext;
 import net.colors_wind.compiler.parse.Program;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Scanner;
 
@@ -36,14 +41,41 @@ import static java.lang.System.out;
 
 public class ICodeMain {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 1) {
+            Path path = Paths.get(args[0]);
+            boolean ast = false;
+            boolean stats = false;
+            for (int i = 1; i < args.length; i++) {
+                if ("--ast".equalsIgnoreCase(args[i]))
+                    ast = true;
+                else if ("--stats=json".equalsIgnoreCase(args[i]))
+                    stats = true;
+            }
+            compile(path.getFileName().toString(), CompilerContext.local().reset(MappedLineSource.map(path)), ast, stats);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         String name = Main.welcome(scanner);
         List<String> list = LexMain.input(scanner);
-        Program program = new Program(list);
+        compile(name, CompilerContext.local().reset(list), false, false);
+    }
+
+    private static void compile(String name, Program program, boolean ast, boolean stats) {
         out.println("开始分析程序: " + name);
-        program.parse();
+        program.setOutput(out);
+        program.setTimed(stats);
+        try {
+            if (ast)
+                program.generate(program.parseTree());
+            else
+                program.parse();
+        } finally {
+            program.getDiagnostics().printTo(System.err);
+        }
         out.println("分析程序完成, 输出中间代码:");
-        program.printIntermediateCodes();
+        program.printIntermediateCodes(out);
+        if (stats)
+            out.println(program.getStats().toJson());
     }
 }
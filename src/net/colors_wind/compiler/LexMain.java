@@ -27,10 +27,17 @@
 
 package net.colors_wind.compiler;
 
+import net.colors_wind.compiler.diagnostic.Diagnostics;
 import net.colors_wind.compiler.lex.Lexer;
-import net.colors_wind.compiler.lex.Token;
+import net.colors_wind.compiler.lex.LineSource;
+import net.colors_wind.compiler.lex.MappedLineSource;
+import net.colors_wind.compiler.lex.ParallelLexer;
+import net.colors_wind.compiler.lex.TokenBuffer;
 import net.colors_wind.compiler.lex.TokenType;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -51,24 +58,58 @@ public class LexMain {
         return list;
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 1) {
+            Path path = Paths.get(args[0]);
+            out.println("对程序 " + path.getFileName() + " 进行词法分析, 输出Token串: ");
+            if (args.length >= 2 && "--parallel".equalsIgnoreCase(args[1])) {
+                Diagnostics diagnostics = new Diagnostics();
+                TokenBuffer buffer = new ParallelLexer().tokenize(MappedLineSource.mapFile(path), diagnostics);
+                diagnostics.printTo(System.err);
+                print(buffer);
+            } else
+                lex(MappedLineSource.map(path));
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         String name = Main.welcome(scanner);
         List<String> list = input(scanner);
         out.println("对程序 " + name + " 进行词法分析, 输出Token串: ");
-        Lexer lexer = new Lexer();
-        for(int i=0;i<list.size();i++) {
-            lexer.input("Line" + (i + 1), list.get(i));
-            while (lexer.hasNext()) {
-                Token token = lexer.preNext();
-                if (token.getType() != TokenType.EOF)
-                    System.out.print(token.toString() + " ");
-                lexer.next();
+        lex(LineSource.of(list));
+        scanner.close();
 
-            }
+    }
+
+    public static void lex(LineSource source) {
+        Lexer lexer = Lexer.create();
+        TokenBuffer buffer = new TokenBuffer();
+        for(int i=0;source.hasNextLine();i++) {
+            lexer.input(i + 1, source.nextLine());
+            buffer.clear();
+            lexer.tokenize(buffer);
+            flush(lexer.getDiagnostics());
+            for (int j = 0; j < buffer.size(); j++)
+                out.print(buffer.getToken(j) + " ");
             out.println();
         }
-        scanner.close();
+    }
 
+    private static void flush(Diagnostics diagnostics) {
+        if (diagnostics.hasErrors()) {
+            diagnostics.printTo(System.err);
+            diagnostics.clear();
+        }
+    }
+
+    public static void print(TokenBuffer buffer) {
+        int lines = buffer.getLine(buffer.size() - 1);
+        int i = 0;
+        for (int line = 1; line <= lines; line++) {
+            for (; i < buffer.size() && buffer.getLine(i) == line; i++) {
+                if (buffer.getType(i) != TokenType.EOF)
+                    out.print(buffer.getToken(i) + " ");
+            }
+            out.println();
+        }
     }
 }
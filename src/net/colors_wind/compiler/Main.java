@@ -28,6 +28,7 @@
 package net.colors_wind.compiler;
 
 import java.awt.*;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Scanner;
 
@@ -46,14 +47,27 @@ public class Main {
         return name;
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         if (args.length >= 1) {
+            String[] options = Arrays.copyOfRange(args, 1, args.length);
             switch (args[0].toLowerCase()) {
                 case "--lex":
-                    LexMain.main(new String[0]);
+                    LexMain.main(options);
                     return;
                 case "--icode":
-                    ICodeMain.main(new String[0]);
+                    ICodeMain.main(options);
+                    return;
+                case "--batch":
+                    BatchMain.main(options);
+                    return;
+                case "--server":
+                    ServerMain.main(options);
+                    return;
+                case "--client":
+                    ClientMain.main(options);
+                    return;
+                case "--generate":
+                    GenerateMain.main(options);
                     return;
                 case "--ui":
                     UIMain.main(new String[0]);
@@ -70,8 +84,12 @@ public class Main {
         }
         out.println("SampleCompiler [--Option]:");
         out.println(" --help 显示帮助");
-        out.println(" --lex 命令行词法生成器");
-        out.println(" --icode 中间代码生成器");
+        out.println(" --lex [文件] [--parallel] 命令行词法生成器, --parallel 并行分析文件");
+        out.println(" --icode [文件] [--ast] [--stats=json] 中间代码生成器, --ast 先建立语法树再生成代码, 不受嵌套深度限制, --stats=json 最后输出各阶段统计");
+        out.println(" --batch [--threads N] [--out 目录] [--ast] [--cache 目录] [--cache-size MB] [--stats=json] <目录|文件...> 并行编译目录下的 .sample 文件");
+        out.println(" --server [--port N] [--threads N] [--cache 目录] [--cache-size MB] [--idle-timeout 秒] [--jmx] 在本机端口上提供编译服务, --jmx 通过 JMX 提供编译统计, 空闲超过 --idle-timeout 秒 (默认 30, 0 不限) 的连接被关闭");
+        out.println(" --client [--port N] [--ast] [--repeat N] <文件...> 通过编译服务编译文件");
+        out.println(" --generate [--seed N] [--statements N] [--size N[K|M|G]] [--depth N] [--width N] [--variables N] <文件|-> 生成可编译的随机程序, 相同参数生成相同程序");
         out.println(" --ui 使用UI");
     }
 }
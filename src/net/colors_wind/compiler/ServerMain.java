@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ServerMain.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler;
+
+import net.colors_wind.compiler.cache.CompileCache;
+import net.colors_wind.compiler.metrics.CompilerMetrics;
+import net.colors_wind.compiler.server.CompileProtocol;
+import net.colors_wind.compiler.server.CompileServer;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.lang.System.out;
+
+public class ServerMain {
+
+    public static void main(String[] args) throws IOException {
+        int port = CompileProtocol.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path cacheDir = null;
+        long cacheSize = CompileCache.DEFAULT_MAX_BYTES;
+        boolean jmx = false;
+        int idleTimeout = CompileProtocol.DEFAULT_IDLE_TIMEOUT;
+        for (int i = 0; i < args.length; i++) {
+            if ("--jmx".equalsIgnoreCase(args[i]))
+                jmx = true;
+            else if (i + 1 == args.length)
+                break;
+            else if ("--port".equalsIgnoreCase(args[i]))
+                port = Integer.parseInt(args[++i]);
+            else if ("--threads".equalsIgnoreCase(args[i]))
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            else if ("--cache".equalsIgnoreCase(args[i]))
+                cacheDir = Paths.get(args[++i]);
+            else if ("--cache-size".equalsIgnoreCase(args[i]))
+                cacheSize = Long.parseLong(args[++i]) << 20;
+            else if ("--idle-timeout".equalsIgnoreCase(args[i]))
+                idleTimeout = Math.max(0, Integer.parseInt(args[++i])) * 1000;
+        }
+        if (jmx) {
+            try {
+                CompilerMetrics.register();
+                CompilerMetrics.getInstance().setEnabled(true);
+                out.println("编译统计已注册到 JMX: " + CompilerMetrics.OBJECT_NAME);
+            } catch (JMException e) {
+                System.err.println("无法注册 JMX: " + e);
+            }
+        }
+        CompileCache cache = cacheDir == null ? null : new CompileCache(cacheDir, cacheSize);
+        try (CompileServer server = new CompileServer(port, threads, cache)) {
+            server.setIdleTimeout(idleTimeout);
+            out.println("编译服务已启动, 端口: " + server.getPort() + ", " + threads + " 个线程"
+                    + (cache == null ? "" : ", 缓存目录: " + cache.getDirectory()));
+            server.serve();
+        }
+    }
+}
@@ -31,20 +31,16 @@ import net.colors_wind.compiler.ui.MainUI;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.PrintStream;
 
 public class UIMain {
 
 
     public static void main(String[] args) {
         MainUI ui = new MainUI();
-        PrintStream err = System.err;
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            System.setOut(ui.new PrintInfoStream(System.out));
-            System.setErr(ui.new PrintErrStream(System.err));
         } catch (Exception e) {
-            e.printStackTrace(err);
+            e.printStackTrace();
         }
         JFrame frame = new JFrame();
         frame.setTitle("Sample Compiler");
@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileCache.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Stores {@link CompileResult}s in a directory, keyed by the SHA-256 of the compiler version, the
+ * options and the source. An entry is written to a temporary file and moved in place, so readers
+ * only ever see whole entries and any number of processes may share the directory. Reading an
+ * entry touches it, when the entries grow over the size limit the least recently used go first.
+ */
+public class CompileCache {
+    // part of every key, change it whenever the codes or diagnostics of a source may change
+    public static final String COMPILER_VERSION = "sample-compiler/4";
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private static final String SUFFIX = ".tac";
+    private static final int MAGIC = 0x53544143;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maxBytes;
+    // bytes of the entries, as far as this process knows, eviction scans the directory again
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CompileCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.size.set(scan().stream().mapToLong(Entry::getSize).sum());
+    }
+
+    public static String key(ByteBuffer source, boolean ast) {
+        return key(COMPILER_VERSION, source, ast);
+    }
+
+    static String key(String version, ByteBuffer source, boolean ast) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(version.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update((byte) (ast ? 1 : 0));
+        digest.update(source.duplicate());
+        byte[] hash = digest.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    // the cached result for source, compiled and stored if there is none
+    public CompileResult compile(ByteBuffer source, boolean ast) {
+        String key = key(source, ast);
+        CompileResult result = get(key);
+        if (result == null) {
+            result = CompileResult.compile(source, ast);
+            put(key, result);
+        }
+        return result;
+    }
+
+    // the result stored under key, null if there is none (or it is unreadable)
+    public CompileResult get(String key) {
+        Path path = path(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("不是缓存文件: " + path);
+            CompileResult result = CompileResult.read(in, Integer.MAX_VALUE);
+            touch(path);
+            hits.incrementAndGet();
+            return result;
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            // a broken entry is dropped and compiled again
+            delete(path);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    // returns false if the entry could not be written, the cache is then just not used
+    public boolean put(String key, CompileResult result) {
+        Path path = path(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(path.getParent());
+            temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                result.write(out);
+            }
+            long length = Files.size(temp);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (size.addAndGet(length) > maxBytes)
+                evict();
+            return true;
+        } catch (IOException e) {
+            if (temp != null)
+                delete(temp);
+            return false;
+        }
+    }
+
+    // removes the least recently used entries until the cache is back to 3/4 of its limit
+    public synchronized void evict() throws IOException {
+        List<Entry> entries = scan();
+        long total = entries.stream().mapToLong(Entry::getSize).sum();
+        if (total > maxBytes) {
+            entries.sort((a, b) -> Long.compare(a.used, b.used));
+            long target = maxBytes / 4 * 3;
+            for (int i = 0; i < entries.size() && total > target; i++) {
+                if (delete(entries.get(i).path)) {
+                    total -= entries.get(i).size;
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        size.set(total);
+    }
+
+    private List<Entry> scan() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory, 2)) {
+            walk.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    // removed meanwhile
+                }
+            });
+        }
+        return entries;
+    }
+
+    // entries are spread over 256 subdirectories by the first byte of their key
+    private Path path(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted meanwhile
+        }
+    }
+
+    private static boolean delete(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getSize() {
+        return size.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final long size;
+        private final long used;
+
+        private Entry(Path path, long size, long used) {
+            this.path = path;
+            this.size = size;
+            this.used = used;
+        }
+
+        private long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileResult.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.cache;
+
+import net.colors_wind.compiler.lex.MappedLineSource;
+import net.colors_wind.compiler.metrics.CompilerMetrics;
+import net.colors_wind.compiler.parse.CompilerContext;
+import net.colors_wind.compiler.parse.Program;
+import net.colors_wind.compiler.trans.TACodeSink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * What compiling a source gives: the code listing and the diagnostics as printed, detached from
+ * the {@link Program} so that it can be sent, stored and printed again.
+ */
+public class CompileResult {
+    public static final int STATUS_OK = 0;
+    // the source was not compiled, the diagnostics say why
+    public static final int STATUS_FAILED = 1;
+
+    private final int status;
+    private final int codes;
+    private final String codesText;
+    private final String diagnostics;
+
+    public CompileResult(int status, int codes, String codesText, String diagnostics) {
+        this.status = status;
+        this.codes = codes;
+        this.codesText = codesText;
+        this.diagnostics = diagnostics;
+    }
+
+    // compiles source (UTF-8) with the CompilerContext of the calling thread, recorded by CompilerMetrics
+    public static CompileResult compile(ByteBuffer source, boolean ast) {
+        ByteArrayOutputStream codes = new ByteArrayOutputStream();
+        PrintStream out = printStream(codes);
+        CompileResult result = compile(source, ast, out);
+        out.flush();
+        if (!result.isOk())
+            return result;
+        return new CompileResult(result.status, result.codes,
+                new String(codes.toByteArray(), StandardCharsets.UTF_8), result.diagnostics);
+    }
+
+    /**
+     * Like {@link #compile(ByteBuffer, boolean)}, but the codes are printed to out as soon as they
+     * are final instead of being kept, the result has no codes text. If the result is not ok, what
+     * was printed is incomplete.
+     */
+    public static CompileResult compile(ByteBuffer source, boolean ast, PrintStream out) {
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        PrintStream err = printStream(diagnostics);
+        int status = STATUS_OK;
+        int count = 0;
+        CompilerMetrics metrics = CompilerMetrics.getInstance();
+        Program program = null;
+        try {
+            if (!source.hasRemaining())
+                throw new IllegalArgumentException("输入为空.");
+            program = CompilerContext.local().reset(new MappedLineSource(source));
+            metrics.prepare(program);
+            program.setSink(TACodeSink.printTo(out));
+            try {
+                if (ast)
+                    program.generate(program.parseTree());
+                else
+                    program.parse();
+            } finally {
+                program.getDiagnostics().printTo(err);
+            }
+            count = program.nextPos();
+        } catch (RuntimeException e) {
+            err.println("编译失败: " + e);
+            status = STATUS_FAILED;
+        } catch (StackOverflowError e) {
+            // direct emission recurses for every nesting level, the tree parser does not
+            err.println("编译失败: 嵌套过深, 可使用 --ast 编译.");
+            status = STATUS_FAILED;
+        }
+        if (program != null)
+            metrics.record(program, status != STATUS_OK);
+        else
+            metrics.recordFailure();
+        err.flush();
+        return new CompileResult(status, count, "",
+                new String(diagnostics.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static PrintStream printStream(ByteArrayOutputStream bytes) {
+        try {
+            return new PrintStream(bytes, false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // int status, int codes, int length, codes text (UTF-8), int length, diagnostics (UTF-8)
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(status);
+        out.writeInt(codes);
+        writeText(out, codesText);
+        writeText(out, diagnostics);
+    }
+
+    public static CompileResult read(DataInputStream in, int maxLength) throws IOException {
+        int status = in.readInt();
+        int codes = in.readInt();
+        String codesText = readText(in, maxLength);
+        String diagnostics = readText(in, maxLength);
+        return new CompileResult(status, codes, codesText, diagnostics);
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength)
+            throw new IOException("长度不合法: " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public boolean isOk() {
+        return status == STATUS_OK;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getCodes() {
+        return codes;
+    }
+
+    // one code per line, as printed by Program.printIntermediateCodes
+    public String getCodesText() {
+        return codesText;
+    }
+
+    public String getDiagnostics() {
+        return diagnostics;
+    }
+}
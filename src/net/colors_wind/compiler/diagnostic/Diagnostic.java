@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: Diagnostic.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.diagnostic;
+
+import java.util.Arrays;
+
+public class Diagnostic {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final DiagnosticCode code;
+    private final int line;
+    private final int column;
+    private final Object[] args;
+
+    public Diagnostic(DiagnosticCode code, int line, int column, Object... args) {
+        this.code = code;
+        this.line = line;
+        this.column = column;
+        this.args = args.length == 0 ? NO_ARGS : args;
+    }
+
+    public DiagnosticCode getCode() {
+        return code;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Object[] getArgs() {
+        return args.clone();
+    }
+
+    public Diagnostic atLine(int line) {
+        return line == this.line ? this : new Diagnostic(code, line, column, args);
+    }
+
+    public String getMessage() {
+        return code.format(args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Diagnostic)) return false;
+        Diagnostic that = (Diagnostic) o;
+        return line == that.line && column == that.column && code == that.code && Arrays.equals(args, that.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return ((code.hashCode() * 31 + line) * 31 + column) * 31 + Arrays.hashCode(args);
+    }
+
+    @Override
+    public String toString() {
+        return "Line" + line + ":" + column + " " + getMessage();
+    }
+}
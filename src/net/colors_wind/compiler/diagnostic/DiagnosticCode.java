@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: DiagnosticCode.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.diagnostic;
+
+public enum DiagnosticCode {
+    // lex
+    UNTERMINATED_COMMENT("未结束的注释."),
+    UNKNOWN_CHARACTER("未知字符: `%s` (%s)."),
+    UNTERMINATED_STRING("字符文字的行结尾不合法"),
+    MISSING_DELIMITER("缺少分界符."),
+    // program
+    MISSING_PROGRAM("缺少 program 声明程序名称."),
+    MISSING_PROGRAM_NAME("格式不匹配, 请检查 program `<标识符>` ."),
+    MISSING_PROGRAM_END("缺少程序结束符 `.` ."),
+    TOKENS_AFTER_END("已读取到程序结束符, 后意外发现Token序列."),
+    UNEXPECTED_END("意外到达文件结尾."),
+    // variable
+    MISSING_COLON("缺少`:`, 请检查 <类型> var <标识符列表> `:` <类型>;."),
+    MISSING_DATA_TYPE("格式不匹配, 缺少 `<类型>`, 请检查变量声明."),
+    MISSING_VARIABLE_NAME("类型不匹配, 请检查 var `<标识符>`."),
+    VARIABLE_REDEFINED("变量重定义: %s"),
+    // statement
+    MISSING_BEGIN("格式不匹配， 预期: `begin` ... ."),
+    MISSING_END("格式不匹配， 预期: ... `end`."),
+    MISSING_INNER_END("缺少 `END`."),
+    UNEXPECTED_STATEMENT("无法解析语句: 意外读取到: `%s`."),
+    MISSING_UNTIL("缺少 `until`."),
+    MISSING_DO("缺少 `DO`"),
+    MISSING_THEN("缺少 `then`"),
+    UNDEFINED_VARIABLE("找不到变量: `%s`, 请检查赋值表达式."),
+    MISSING_ASSIGNMENT("格式不匹配, 缺少 `:=`, 请检查赋值表达式."),
+    NOT_RIGHT_VALUE("赋值号右边不是一个右值表达式."),
+    ASSIGNMENT_TYPE_MISMATCH("类型不匹配: 尝试将一个 %s 的右值赋值给 %s, 但 %s 是 %s 类型的."),
+    // expression
+    UNDEFINED_SYMBOL("找不到符号: %s"),
+    TYPE_MISMATCH("类型不匹配: %s 不是 %s 类型的."),
+    MISSING_RIGHT_PARENTHESIS("缺少 `)`."),
+    UNEXPECTED_CHAR_EXPRESSION("无法解析字符表达式: 未知Token: %s"),
+    DIVIDE_BY_ZERO("除数不能为0."),
+    UNEXPECTED_ARITHMETIC_VALUE("格式不匹配， 预期: `<整数>│<标识符>│(<算术表达式)`"),
+    UNEXPECTED_BOOLEAN_VALUE("解析布尔量失败: 意外读取到: `%s`."),
+    MISSING_ARITHMETIC_EXPRESSION_1("缺少 `<算术表达式1>`, 请检查关系运算表达式."),
+    MISSING_RELATIONAL_OPERATOR("缺少 `<关系运算符>`, 请检查关系运算表达式."),
+    MISSING_ARITHMETIC_EXPRESSION_2("缺少 `<算术表达式2>`, 请检查关系运算表达式.");
+
+    private final String template;
+
+    DiagnosticCode(String template) {
+        this.template = template;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public String format(Object[] args) {
+        return args.length == 0 ? template : String.format(template, args);
+    }
+}
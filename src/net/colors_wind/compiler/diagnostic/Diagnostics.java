@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: Diagnostics.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.diagnostic;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the diagnostics of one compilation. Messages are only formatted when printed,
+ * repeated diagnostics are reported once and at most {@code limit} diagnostics are kept.
+ */
+public class Diagnostics {
+    public static final int DEFAULT_LIMIT = 1000;
+
+    private final int limit;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private final Set<Diagnostic> reported = new HashSet<>();
+    private int dropped;
+
+    public Diagnostics() {
+        this(DEFAULT_LIMIT);
+    }
+
+    public Diagnostics(int limit) {
+        this.limit = limit;
+    }
+
+    public void report(DiagnosticCode code, int line, int column, Object... args) {
+        add(new Diagnostic(code, line, column, args));
+    }
+
+    public void add(Diagnostic diagnostic) {
+        if (diagnostics.size() >= limit) {
+            dropped++;
+        } else if (reported.add(diagnostic)) {
+            diagnostics.add(diagnostic);
+        }
+    }
+
+    public void addAll(Diagnostics other) {
+        for (Diagnostic diagnostic : other.diagnostics)
+            add(diagnostic);
+        dropped += other.dropped;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+
+    // diagnostics over the limit, they are not checked for duplicates
+    public int getDropped() {
+        return dropped;
+    }
+
+    public void clear() {
+        diagnostics.clear();
+        reported.clear();
+        dropped = 0;
+    }
+
+    public void printTo(PrintStream out) {
+        for (Diagnostic diagnostic : diagnostics)
+            out.println(diagnostic.toString());
+        if (dropped > 0)
+            out.println("错误过多, 另有 " + dropped + " 个错误未显示.");
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ProgramGenerator.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Writes a random Sample program that compiles without diagnostics, the same one for the same seed
+ * and settings. Statements are written as they are generated, so the size of the program is not
+ * bounded by memory. The program declares integer and bool variables and nests assignments, if,
+ * while, repeat and begin blocks up to the given depth. Every compound statement gets a begin
+ * block, conditions are relations or bool variables joined by and / or.
+ */
+public class ProgramGenerator {
+    private static final int LINE_LENGTH = 100;
+    private static final int MAX_INDENT = 16;
+    private static final String[] ARITHMETIC_OPERATORS = {" + ", " - ", " * ", " / "};
+    private static final String[] RELATIONAL_OPERATORS = {" < ", " <= ", " > ", " >= ", " = ", " <> "};
+
+    // what closes an open block
+    private static final int BEGIN = 0;
+    private static final int IF = 1;
+    private static final int IF_ELSE = 2;
+    private static final int WHILE = 3;
+    private static final int REPEAT = 4;
+
+    private final long seed;
+    private long statements = 1000;
+    private long maxBytes = Long.MAX_VALUE;
+    private int depth = 8;
+    private int width = 4;
+    private int variables = 8;
+
+    private Random random;
+    private Writer out;
+    private long written;
+    private int column;
+    private int[] blocks;
+    private boolean[] filled;
+    private int level;
+    private long generated;
+    // statements closing the open blocks takes: one for every empty block and else part to come
+    private long owed;
+
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // statements to write, at least one, compound statements count as one
+    public void setStatements(long statements) {
+        this.statements = statements;
+    }
+
+    // stops adding statements once this many bytes are written, the blocks still open are closed after it
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // how deep compound statements may nest
+    public void setDepth(int depth) {
+        this.depth = Math.max(0, depth);
+    }
+
+    // most operators in an arithmetic expression
+    public void setWidth(int width) {
+        this.width = Math.max(0, width);
+    }
+
+    // variables declared, a quarter of them bool and at least one of each type
+    public void setVariables(int variables) {
+        this.variables = Math.max(2, variables);
+    }
+
+    // writes the program, returns its size in bytes
+    public long generate(Writer out) throws IOException {
+        this.random = new Random(seed);
+        this.out = out;
+        this.written = 0;
+        this.column = 0;
+        this.blocks = new int[depth + 1];
+        this.filled = new boolean[depth + 1];
+        this.level = 0;
+        this.generated = 0;
+        this.owed = 1;
+        write("program generated;");
+        declare();
+        newline(0);
+        write("begin");
+        // what is owed is part of the count, closing the blocks stays within it
+        while (generated + owed < statements && written < maxBytes)
+            step();
+        while (level > 0)
+            close();
+        if (!filled[0])
+            assignment();
+        newline(0);
+        write("end.");
+        newline(0);
+        out.flush();
+        return written;
+    }
+
+    // statements generated by the last generate
+    public long getGenerated() {
+        return generated;
+    }
+
+    private int bools() {
+        return Math.max(1, variables / 4);
+    }
+
+    private int integers() {
+        return variables - bools();
+    }
+
+    private void declare() throws IOException {
+        newline(0);
+        write("var");
+        declare("v", integers(), "integer");
+        declare("f", bools(), "bool");
+    }
+
+    private void declare(String prefix, int count, String type) throws IOException {
+        newline(1);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                write(", ");
+                if (column > LINE_LENGTH)
+                    newline(2);
+            }
+            write(prefix + i);
+        }
+        write(" : " + type + ";");
+    }
+
+    private void step() throws IOException {
+        int choice = random.nextInt(100);
+        if (level > 0 && filled[level] && choice < 25)
+            close();
+        else if (level < depth && choice < 55 && statements - generated - owed >= 3)
+            open();
+        else
+            assignment();
+    }
+
+    // starts the next statement of the current block
+    private void separate() throws IOException {
+        if (filled[level])
+            write(";");
+        else
+            owed--;
+        filled[level] = true;
+        generated++;
+        newline(level + 1);
+    }
+
+    private void open() throws IOException {
+        separate();
+        int block = random.nextInt(5);
+        switch (block) {
+            case BEGIN:
+                write("begin");
+                break;
+            case IF:
+            case IF_ELSE:
+                write("if ");
+                condition();
+                write(" then begin");
+                break;
+            case WHILE:
+                write("while ");
+                condition();
+                write(" do begin");
+                break;
+            default:
+                write("repeat begin");
+                break;
+        }
+        level++;
+        blocks[level] = block;
+        filled[level] = false;
+        owed += block == IF_ELSE ? 2 : 1;
+    }
+
+    private void close() throws IOException {
+        if (!filled[level])
+            assignment();
+        newline(level);
+        write("end");
+        if (blocks[level] == IF_ELSE) {
+            // the else part is a block of its own at the same level
+            write(" else begin");
+            blocks[level] = BEGIN;
+            filled[level] = false;
+            return;
+        }
+        if (blocks[level] == REPEAT) {
+            write(" until ");
+            condition();
+        }
+        level--;
+    }
+
+    private void assignment() throws IOException {
+        separate();
+        if (random.nextInt(5) == 0) {
+            write("f" + random.nextInt(bools()) + " := ");
+            int value = random.nextInt(3);
+            write(value == 0 ? "true" : value == 1 ? "false" : "f" + random.nextInt(bools()));
+        } else {
+            write(integer() + " := ");
+            arithmetic(width == 0 ? 0 : random.nextInt(width + 1));
+        }
+    }
+
+    // an expression of `operators` operators, it never starts with a parenthesis
+    private void arithmetic(int operators) throws IOException {
+        write(operand());
+        while (operators > 0) {
+            write(ARITHMETIC_OPERATORS[random.nextInt(ARITHMETIC_OPERATORS.length)]);
+            if (operators >= 2 && random.nextInt(5) == 0) {
+                write("(" + operand() + ARITHMETIC_OPERATORS[random.nextInt(ARITHMETIC_OPERATORS.length)]
+                        + operand() + ")");
+                operators -= 2;
+            } else {
+                write(operand());
+                operators--;
+            }
+            if (column > LINE_LENGTH)
+                newline(level + 2);
+        }
+    }
+
+    // literals are never 0, so nothing is divided by zero
+    private String operand() {
+        return random.nextBoolean() ? integer() : String.valueOf(1 + random.nextInt(999));
+    }
+
+    private String integer() {
+        return "v" + random.nextInt(integers());
+    }
+
+    private void condition() throws IOException {
+        int terms = 1 + random.nextInt(3);
+        for (int i = 0; i < terms; i++) {
+            if (i > 0)
+                write(random.nextBoolean() ? " and " : " or ");
+            if (random.nextInt(5) == 0) {
+                write("f" + random.nextInt(bools()));
+            } else {
+                arithmetic(random.nextInt(Math.min(width, 2) + 1));
+                write(RELATIONAL_OPERATORS[random.nextInt(RELATIONAL_OPERATORS.length)]);
+                arithmetic(random.nextInt(Math.min(width, 2) + 1));
+            }
+        }
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text);
+        written += text.length();
+        column += text.length();
+    }
+
+    private void newline(int indent) throws IOException {
+        out.write('\n');
+        written++;
+        column = 0;
+        for (int i = Math.min(indent, MAX_INDENT); i > 0; i--)
+            write("  ");
+    }
+}
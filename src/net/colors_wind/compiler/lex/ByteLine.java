@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ByteLine.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable view of one line of a UTF-8 encoded {@link ByteBuffer}. Every byte is read
+ * as one char, the Sample charset is ASCII so only lines holding a byte >= 0x80 (in a
+ * comment, a string constant or an unknown character) need to be decoded, and only
+ * where the lexer reports or keeps the text.
+ */
+public class ByteLine implements CharSequence {
+    private final ByteBuffer buffer;
+    private int offset;
+    private int length;
+    private boolean ascii;
+    // where column stopped last, the lexer asks in order so it goes on from there
+    private int columnIndex;
+    private int columnValue;
+
+    public ByteLine(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.ascii = true;
+    }
+
+    public ByteLine(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.ascii = true;
+        for (int i = 0; i < length && ascii; i++)
+            ascii = buffer.get(offset + i) >= 0;
+    }
+
+    void reset(int offset, int length, boolean ascii) {
+        this.offset = offset;
+        this.length = length;
+        this.ascii = ascii;
+        this.columnIndex = 0;
+        this.columnValue = 0;
+    }
+
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    // the code point of the UTF-8 sequence at index, or -1 if the sequence is malformed
+    public int codePointAt(int index) {
+        int b = buffer.get(offset + index) & 0xFF;
+        if (b < 0x80)
+            return b;
+        int length, codePoint;
+        if (b >= 0xF0) {
+            length = 4;
+            codePoint = b & 0x07;
+        } else if (b >= 0xE0) {
+            length = 3;
+            codePoint = b & 0x0F;
+        } else if (b >= 0xC0) {
+            length = 2;
+            codePoint = b & 0x1F;
+        } else {
+            return -1;
+        }
+        if (index + length > this.length)
+            return -1;
+        for (int i = 1; i < length; i++) {
+            int next = buffer.get(offset + index + i) & 0xFF;
+            if ((next & 0xC0) != 0x80)
+                return -1;
+            codePoint = codePoint << 6 | next & 0x3F;
+        }
+        if (codePoint < MIN_CODE_POINTS[length] || codePoint > Character.MAX_CODE_POINT
+                || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)
+            return -1;
+        return codePoint;
+    }
+
+    // bytes taken by the sequence at index, like the decoder a malformed sequence is
+    // replaced as a whole up to the first byte that does not continue it
+    public int sequenceLength(int index) {
+        int codePoint = codePointAt(index);
+        if (codePoint >= 0)
+            return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+        int b = buffer.get(offset + index) & 0xFF;
+        int expected = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        int length = 1;
+        while (length < expected && index + length < this.length
+                && (buffer.get(offset + index + length) & 0xC0) == 0x80)
+            length++;
+        return length;
+    }
+
+    // the index in the decoded line (UTF-16 chars) of the byte at index
+    public int column(int index) {
+        if (ascii)
+            return index;
+        int column = 0;
+        int i = 0;
+        if (index >= columnIndex) {
+            column = columnValue;
+            i = columnIndex;
+        }
+        while (i < index && i < length) {
+            int codePoint = codePointAt(i);
+            column += codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT ? 2 : 1;
+            i += sequenceLength(i);
+        }
+        columnIndex = i;
+        columnValue = column;
+        return column + Math.max(0, index - Math.max(i, length));
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new ByteLine(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = buffer.get(offset + i);
+        return new String(bytes, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    private static final int[] MIN_CODE_POINTS = {0, 0, 0x80, 0x800, 0x10000};
+}
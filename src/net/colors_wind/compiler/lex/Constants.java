@@ -53,21 +53,36 @@ public class Constants {
             new char[]{'+', '-', '*', '/', '=', '<', '>', '(', ')', '[', ']', ':', '.', ';', ',', '\''}
             , CHARSET_BLANK);
     public static final char[] CHARSET = concat(CHARSET_ALPHABET, CHARSET_DIGIT, CHARSET_DELIMITER, CHARSET_BLANK);
+    // for performance, every char of the charset is ASCII
+    private static final int FLAG_CHARSET = 1;
+    private static final int FLAG_DELIMITER = 2;
+    private static final int FLAG_BLANK = 4;
+    private static final byte[] FLAGS = new byte[128];
     static {
         Arrays.sort(CHARSET_DELIMITER);
         Arrays.sort(CHARSET_BLANK);
+        for (char c : CHARSET)
+            FLAGS[c] |= FLAG_CHARSET;
+        for (char c : CHARSET_DELIMITER)
+            FLAGS[c] |= FLAG_DELIMITER;
+        for (char c : CHARSET_BLANK)
+            FLAGS[c] |= FLAG_BLANK;
+    }
+
+    private static boolean hasFlag(char c, int flag) {
+        return c < FLAGS.length && (FLAGS[c] & flag) != 0;
     }
 
     public static boolean isDelimiter(char c) {
-        return Arrays.binarySearch(CHARSET_DELIMITER, c) >= 0;
+        return hasFlag(c, FLAG_DELIMITER);
     }
 
     public static boolean isInCharSet(char c) {
-        return Arrays.binarySearch(CHARSET, c) >= 0;
+        return hasFlag(c, FLAG_CHARSET);
     }
 
     public static boolean isBlank(char c) {
-        return Arrays.binarySearch(CHARSET_BLANK, c) >= 0;
+        return hasFlag(c, FLAG_BLANK);
     }
 
     public static boolean isAlphabet(char c) {
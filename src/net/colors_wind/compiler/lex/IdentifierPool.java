@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: IdentifierPool.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import java.util.Arrays;
+
+/**
+ * Gives every distinct identifier of a compilation a dense int id. Looking up an
+ * identifier that was seen before does not create any object, its name and its
+ * {@link Token} are shared.
+ */
+public class IdentifierPool {
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private Token[] tokens = new Token[64];
+    private int size;
+    // id + 1, 0 means empty
+    private int[] slots = new int[128];
+
+    public int intern(CharSequence input, int begin, int end) {
+        int hash = hash(input, begin, end);
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                id = add(input.subSequence(begin, end).toString(), hash);
+                slots[slot] = id + 1;
+                if (size * 2 > slots.length)
+                    rehash();
+                return id;
+            }
+            if (hashes[id] == hash && matches(names[id], input, begin, end))
+                return id;
+        }
+    }
+
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    // returns -1 if the identifier has never been interned
+    public int find(String name) {
+        int hash = hash(name, 0, name.length());
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0)
+                return -1;
+            if (hashes[id] == hash && names[id].equals(name))
+                return id;
+        }
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    Token getToken(int id) {
+        return tokens[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(tokens, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private int add(String name, int hash) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            tokens = Arrays.copyOf(tokens, size * 2);
+        }
+        names[size] = name;
+        hashes[size] = hash;
+        tokens[size] = new Token(TokenType.IDENTIFIER, name, size);
+        return size++;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence input, int begin, int end) {
+        int hash = 0;
+        for (int i = begin; i < end; i++)
+            hash = 31 * hash + input.charAt(i);
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence input, int begin, int end) {
+        if (name.length() != end - begin)
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != input.charAt(begin + i))
+                return false;
+        }
+        return true;
+    }
+}
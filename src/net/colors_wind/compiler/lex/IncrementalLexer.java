@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: IncrementalLexer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostic;
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lexes a whole text again and again while it is being edited, only lines that were
+ * not lexed before are scanned. Comments never span lines in Sample, so the tokens of
+ * a line depend on nothing but its content and the cache is keyed by the line itself;
+ * moving a line only changes the line number its diagnostics are reported at.
+ * <p>
+ * Identifiers of removed lines stay in the identifier pool of the lexer, so once the pool
+ * has grown to twice what the text needed at the last rebuild, pool and cache are dropped
+ * and the whole text is lexed again.
+ */
+public class IncrementalLexer {
+    private static final int MIN_POOL_LIMIT = 4096;
+    private final Lexer lexer;
+    private final Diagnostics diagnostics = new Diagnostics();
+    private Map<String, LexedLine> cache = new HashMap<>();
+    private int hits;
+    private int poolLimit = MIN_POOL_LIMIT;
+
+    public IncrementalLexer() {
+        this(Lexer.create());
+    }
+
+    public IncrementalLexer(Lexer lexer) {
+        this.lexer = lexer;
+        this.lexer.setDiagnostics(diagnostics);
+    }
+
+    public List<LexedLine> lex(List<String> lines) {
+        IdentifierPool identifiers = lexer.getIdentifierPool();
+        boolean rebuild = identifiers.size() > poolLimit;
+        if (rebuild) {
+            cache.clear();
+            identifiers.clear();
+        }
+        Map<String, LexedLine> next = new HashMap<>(Math.max(16, lines.size() * 2));
+        List<LexedLine> result = new ArrayList<>(lines.size());
+        hits = 0;
+        for (String line : lines) {
+            LexedLine lexed = next.get(line);
+            if (lexed == null) {
+                lexed = cache.get(line);
+                if (lexed == null)
+                    lexed = lex(line);
+                else
+                    hits++;
+                next.put(line, lexed);
+            } else {
+                hits++;
+            }
+            result.add(lexed);
+        }
+        // lines that were removed by the edit are dropped
+        cache = next;
+        if (rebuild)
+            poolLimit = Math.max(MIN_POOL_LIMIT, identifiers.size() * 2);
+        return result;
+    }
+
+    private LexedLine lex(String line) {
+        lexer.input(0, line);
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (lexer.hasNext()) {
+            Token token = lexer.next();
+            if (token.getType() != TokenType.EOF) {
+                tokens.add(token);
+                text.append(token).append(' ');
+            }
+        }
+        List<Diagnostic> lineDiagnostics = diagnostics.hasErrors()
+                ? new ArrayList<>(diagnostics.getDiagnostics()) : Collections.emptyList();
+        diagnostics.clear();
+        return new LexedLine(tokens, text.toString(), lineDiagnostics);
+    }
+
+    // lines of the last lex(List) that were taken from the cache
+    public int getHits() {
+        return hits;
+    }
+
+    public void clear() {
+        cache.clear();
+        lexer.getIdentifierPool().clear();
+        poolLimit = MIN_POOL_LIMIT;
+    }
+
+    public static class LexedLine {
+        private final List<Token> tokens;
+        private final String text;
+        private final List<Diagnostic> diagnostics;
+
+        LexedLine(List<Token> tokens, String text, List<Diagnostic> diagnostics) {
+            this.tokens = Collections.unmodifiableList(tokens);
+            this.text = text;
+            this.diagnostics = diagnostics;
+        }
+
+        public List<Token> getTokens() {
+            return tokens;
+        }
+
+        // the tokens separated by blanks, as printed by the lexer
+        public String getText() {
+            return text;
+        }
+
+        public void reportTo(Diagnostics diagnostics, int line) {
+            for (Diagnostic diagnostic : this.diagnostics)
+                diagnostics.add(diagnostic.atLine(line));
+        }
+    }
+}
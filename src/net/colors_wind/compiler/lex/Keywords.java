@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: Keywords.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import java.util.Arrays;
+
+/**
+ * A char trie of the reserved words in {@link TokenType}, classifies a range of the
+ * input without creating any object. Most identifiers are rejected by the first one
+ * or two characters.
+ */
+public class Keywords {
+    private static final int ALPHABET = 26;
+
+    // children[node * ALPHABET + (c - 'a')], 0 means no child (the root is never a child)
+    private static final int[] children;
+    private static final TokenType[] accepts;
+    private static final int maxLength;
+
+    // built once, only read afterwards, so lexers on any thread share it
+    static {
+        int[] child = new int[ALPHABET];
+        TokenType[] accept = new TokenType[1];
+        int nodes = 1;
+        int longest = 0;
+        for (TokenType type : TokenType.values()) {
+            String name = type.getName();
+            if (!type.isReserved() || !isWord(name))
+                continue;
+            int node = 0;
+            for (int i = 0; i < name.length(); i++) {
+                int slot = node * ALPHABET + name.charAt(i) - 'a';
+                if (child[slot] == 0) {
+                    if (nodes == accept.length) {
+                        child = Arrays.copyOf(child, nodes * 2 * ALPHABET);
+                        accept = Arrays.copyOf(accept, nodes * 2);
+                    }
+                    child[slot] = nodes++;
+                }
+                node = child[slot];
+            }
+            accept[node] = type;
+            longest = Math.max(longest, name.length());
+        }
+        children = Arrays.copyOf(child, nodes * ALPHABET);
+        accepts = Arrays.copyOf(accept, nodes);
+        maxLength = longest;
+    }
+
+    private static boolean isWord(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) < 'a' || name.charAt(i) > 'z')
+                return false;
+        }
+        return !name.isEmpty();
+    }
+
+    // returns the reserved word of [begin, end), or IDENTIFIER
+    public static TokenType classify(CharSequence input, int begin, int end) {
+        if (end - begin > maxLength)
+            return TokenType.IDENTIFIER;
+        int node = 0;
+        for (int i = begin; i < end; i++) {
+            int c = input.charAt(i) - 'a';
+            if (c < 0 || c >= ALPHABET)
+                return TokenType.IDENTIFIER;
+            node = children[node * ALPHABET + c];
+            if (node == 0)
+                return TokenType.IDENTIFIER;
+        }
+        TokenType type = accepts[node];
+        return type == null ? TokenType.IDENTIFIER : type;
+    }
+}
@@ -27,22 +27,53 @@
 
 package net.colors_wind.compiler.lex;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+
+import java.io.PrintStream;
 import java.util.NoSuchElementException;
 
 public class Lexer {
-    private String prefix;
-    private String input;
-    // index == size: TOKEN AVAILABLE
+    public enum Engine {
+        HAND_WRITTEN, TABLE_DRIVEN;
+
+        // -Dsample.lexer=table selects the table driven engine
+        public static final Engine DEFAULT = "table".equalsIgnoreCase(System.getProperty("sample.lexer"))
+                ? TABLE_DRIVEN : HAND_WRITTEN;
+    }
+
+    private Diagnostics diagnostics = new Diagnostics();
+    private IdentifierPool identifiers = new IdentifierPool();
+    // where info goes, dropped if not set
+    private PrintStream output;
+    private int line;
+    CharSequence input;
+    // input is a ByteLine holding multi-byte UTF-8 sequences, index counts bytes
+    private boolean utf8;
+    // index <  size: TOKEN AVAILABLE
     // index == size: EOF
     // index >  size: NO MORE TOKEN
-    private int index;
+    int index;
 
     private int preIndex;
     private Token preToken;
 
-    public void input(String prefix, String str) {
-        this.prefix = prefix;
+    // the phrase of IDENTIFIER, C_INTEGER and C_STRING is [begin, end)
+    int begin;
+    int end;
+
+    public static Lexer create() {
+        return create(Engine.DEFAULT);
+    }
+
+    public static Lexer create(Engine engine) {
+        return engine == Engine.TABLE_DRIVEN ? new TableLexer() : new Lexer();
+    }
+
+    public void input(int line, CharSequence str) {
+        this.line = line;
         this.input = str;
+        this.utf8 = str instanceof ByteLine && !((ByteLine) str).isAscii();
         this.index = 0;
         this.preIndex = 0;
         this.preToken = null;
@@ -75,7 +106,7 @@ public class Lexer {
                 }
                 index++;
             }
-            error("未结束的注释.");
+            error(DiagnosticCode.UNTERMINATED_COMMENT);
         }
 
     }
@@ -108,11 +139,34 @@ public class Lexer {
             return token;
         }
 
+        TokenType type = scan();
+        if (type == TokenType.IDENTIFIER)
+            return identifiers.getToken(identifiers.intern(input, begin, end));
+        return type.hasFixedPhrase() ? Token.of(type) : new Token(type, phrase(begin, end));
+    }
+
+    public void tokenize(TokenBuffer buffer) {
+        preToken = null;
+        while (index < input.length()) {
+            int column = column(index) + 1;
+            TokenType type = scan();
+            if (utf8 && type == TokenType.C_STRING) {
+                String phrase = phrase(begin, end);
+                buffer.add(type, line, column, phrase, 0, phrase.length());
+            } else {
+                buffer.add(type, line, column, input, begin, end);
+            }
+            skipBlank();
+        }
+        index = input.length() + 1;
+    }
+
+    TokenType scan() throws NoSuchElementException {
         if (index > input.length())
             throw new NoSuchElementException("没有更多的Token");
         else if (index == input.length()) {
             index++;
-            return new Token(TokenType.EOF, "-");
+            return TokenType.EOF;
         }
         char c = input.charAt(index);
         if (Constants.isAlphabet(c)) {
@@ -123,149 +177,172 @@ public class Lexer {
             return stateConstant();
         } else if (c == '(') {
             index++;
-            return new Token(TokenType.LEFT_PARENTHESIS, "(");
+            return TokenType.LEFT_PARENTHESIS;
         } else if (c == ')') {
             index++;
-            return new Token(TokenType.RIGHT_PARENTHESIS, ")");
+            return TokenType.RIGHT_PARENTHESIS;
         } else if (c == '*') {
             index++;
-            return new Token(TokenType.MULTIPLY, "*");
+            return TokenType.MULTIPLY;
         } else if (c == '+') {
             index++;
-            return new Token(TokenType.PLUS, "+");
+            return TokenType.PLUS;
         } else if (c == ',') {
             index++;
-            return new Token(TokenType.COMMA, ",");
+            return TokenType.COMMA;
         } else if (c == '-') {
             index++;
-            return new Token(TokenType.MINUS, "-");
+            return TokenType.MINUS;
         } else if (c == '.')  {
             // DOT or DOUBLE_DOT
             return stateDot();
         } else if (c == '/') {
             index++;
-            return new Token(TokenType.DIVISION, "/");
+            return TokenType.DIVISION;
         } else if (c == ':')  {
             // COLON or ASSIGNMENT
             return stateColon();
         } else if (c == ';') {
             index++;
-            return new Token(TokenType.SEMICOLON, ";");
+            return TokenType.SEMICOLON;
         } else if (c == '<') {
             // LESS, LESS_OR_EQUAL or NOT_EQUAL
             return stateLess();
         } else if (c == '=') {
             index++;
-            return new Token(TokenType.EQUAL, "=");
+            return TokenType.EQUAL;
         } else if (c == '>') {
             // MORE or MORE_OR_EQUAL
             return stateMore();
         } else if (c == '[') {
             index++;
-            return new Token(TokenType.LEFT_BRACKET, "[");
+            return TokenType.LEFT_BRACKET;
         } else if (c == ']') {
             index++;
-            return new Token(TokenType.RIGHT_BRACKET, "]");
+            return TokenType.RIGHT_BRACKET;
         } else {
-            error("未知字符: `" + c + "` (" + (int)c + ").");
-            index++;
-            return new Token(TokenType.NOPE, "ERROR");
+            unknownCharacter();
+            return TokenType.NOPE;
         }
     }
 
-    private Token stateLetter() {
-        int begin = index;
+    private TokenType stateLetter() {
+        begin = index;
         while (index<input.length() &&
                 (Constants.isAlphabet(input.charAt(index)) || Constants.isDigit(input.charAt(index)))) {
             index++;
         }
-        String str = input.substring(begin, index);
-        return TokenType.getReserved(str).map(type -> new Token(type, str)).orElseGet(() -> new Token(TokenType.IDENTIFIER, str));
+        end = index;
+        return Keywords.classify(input, begin, end);
     }
 
-    private Token stateConstant() {
-        int begin = ++index;
+    private TokenType stateConstant() {
+        begin = ++index;
         while (index<input.length() &&
                 input.charAt(index) != '\'') {
             index++;
         }
         if (index == input.length()) {
-            error("字符文字的行结尾不合法");
-            return new Token(TokenType.NOPE, "ERROR");
+            error(DiagnosticCode.UNTERMINATED_STRING);
+            return TokenType.NOPE;
         } else {
-            return new Token(TokenType.C_STRING, input.substring(begin, index++));
+            end = index++;
+            return TokenType.C_STRING;
         }
 
     }
 
 
 
-    private Token stateInteger() {
-        int begin = index;
+    private TokenType stateInteger() {
+        begin = index;
         while (((index < input.length()) &&
                 Constants.isDigit(input.charAt(index))))
             index++;
         if (!Constants.isDelimiter(safeRead()))
-            error("缺少分界符.");
-        String str;
-        if (index == input.length())
-            str = input.substring(begin);
-        else
-            str = input.substring(begin, index);
-
-        return new Token(TokenType.C_INTEGER, str);
+            error(DiagnosticCode.MISSING_DELIMITER);
+        end = index;
+        return TokenType.C_INTEGER;
     }
 
 
-    private Token stateMore() {
+    private TokenType stateMore() {
         index++;
         if (safeRead() == '=') {
             index++;
-            return new Token(TokenType.MORE_OR_EQUAL, ">=");
+            return TokenType.MORE_OR_EQUAL;
         }
-        return new Token(TokenType.MORE_THAN, ">");
+        return TokenType.MORE_THAN;
     }
 
-    private Token stateLess() {
+    private TokenType stateLess() {
         index++;
         char c = safeRead();
         if (c == '=') {
             index++;
-            return new Token(TokenType.LESS_OR_EQUAL, "<=");
+            return TokenType.LESS_OR_EQUAL;
         } else if (c == '>'){
             index++;
-            return new Token(TokenType.NOT_EQUAL, "<>");
+            return TokenType.NOT_EQUAL;
         }
-        return new Token(TokenType.LESS_THAN, "<");
+        return TokenType.LESS_THAN;
     }
 
-    private Token stateColon() {
+    private TokenType stateColon() {
         index++;
         if (safeRead() == '=') {
             index++;
-            return new Token(TokenType.ASSIGNMENT, ":=");
+            return TokenType.ASSIGNMENT;
         }
-        return new Token(TokenType.COLON, ":");
+        return TokenType.COLON;
     }
 
 
-    private Token stateDot() {
+    private TokenType stateDot() {
         index++;
         if (safeRead() == '.')
-            return new Token(TokenType.DOUBLE_DOT, "..");
-        return new Token(TokenType.DOT, ".");
+            return TokenType.DOUBLE_DOT;
+        return TokenType.DOT;
     }
 
 
+    // reports the character at index and skips it, a supplementary character or a UTF-8
+    // sequence is reported as the code point it encodes
+    void unknownCharacter() {
+        int codePoint;
+        int length;
+        if (utf8) {
+            ByteLine bytes = (ByteLine) input;
+            codePoint = bytes.codePointAt(index);
+            if (codePoint < 0)
+                codePoint = 0xFFFD;
+            length = bytes.sequenceLength(index);
+        } else {
+            codePoint = Character.codePointAt(input, index);
+            length = Character.charCount(codePoint);
+        }
+        error(DiagnosticCode.UNKNOWN_CHARACTER, new String(Character.toChars(codePoint)), codePoint);
+        index += length;
+    }
+
     protected void info(String msg) {
-        System.out.println(prefix + " " + msg);
+        info(line, msg);
     }
 
-    protected void error(String msg) {
-        System.err.println(prefix + ":" + (index + 1) + " " + msg);
+    void info(int line, String msg) {
+        if (output != null)
+            output.println("Line" + line + " " + msg);
+    }
+
+    protected void error(DiagnosticCode code, Object... args) {
+        error(line, column(index), code, args);
         //index = input.length() + 1;
     }
 
+    void error(int line, int column, DiagnosticCode code, Object... args) {
+        diagnostics.report(code, line, column + 1, args);
+    }
+
     private char safeRead() {
         if (index < input.length())
             return input.charAt(index);
@@ -273,11 +350,48 @@ public class Lexer {
     }
 
 
+    private String phrase(int begin, int end) {
+        return input.subSequence(begin, end).toString();
+    }
+
+    public void setIdentifierPool(IdentifierPool identifiers) {
+        this.identifiers = identifiers;
+    }
+
+    public IdentifierPool getIdentifierPool() {
+        return identifiers;
+    }
+
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    public PrintStream getOutput() {
+        return output;
+    }
+
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
     public String getPrefix() {
-        return prefix;
+        return "Line" + line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    // the position in the decoded line, the same as index unless the line holds UTF-8 sequences
+    int getColumn() {
+        return column(index);
     }
 
-    int getIndex() {
-        return this.index;
+    int column(int index) {
+        return utf8 ? ((ByteLine) input).column(index) : index;
     }
 }
@@ -3,7 +3,7 @@
  *
  * Copyright (c) 2021 ColorsWind
  *
- * File: CodePos.java
+ * File: LineSource.java
  * Author: ColorsWind
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
@@ -25,22 +25,18 @@
  * SOFTWARE.
  */
 
-package net.colors_wind.compiler.parse;
+package net.colors_wind.compiler.lex;
 
-public class CodePos {
-    private int pos;
+import java.util.List;
 
+public interface LineSource {
 
-    public int getPos() {
-        return pos;
-    }
+    boolean hasNextLine();
 
-    public void setPos(int pos) {
-        this.pos = pos;
-    }
+    // the returned sequence is only valid until the next call
+    CharSequence nextLine();
 
-    @Override
-    public String toString() {
-        return String.valueOf(pos);
+    static LineSource of(List<? extends CharSequence> lines) {
+        return new ListLineSource(lines);
     }
 }
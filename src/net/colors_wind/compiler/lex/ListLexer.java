@@ -27,76 +27,196 @@
 
 package net.colors_wind.compiler.lex;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
+import net.colors_wind.compiler.diagnostic.Diagnostics;
 import net.colors_wind.compiler.parse.UnexpectedEndException;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 public class ListLexer {
-    private final List<String> input;
+    // size of the lookahead ring, peek(n) supports n < LOOKAHEAD
+    public static final int LOOKAHEAD = 4;
+
+    private LineSource input;
     private final Lexer lexer;
     private int index;
 
+    // every token is lexed once into the ring, with the position the lexer had before it
+    private final Token[] ring = new Token[LOOKAHEAD];
+    private final int[] ringLines = new int[LOOKAHEAD];
+    private final int[] ringColumns = new int[LOOKAHEAD];
+    private int head;
+    private int count;
+
+    private long peeks;
+    private long consumed;
+    private long bytes;
+    // time spent lexing, only measured when timed: the first LEX_SAMPLE fills are timed, after them
+    // every LEX_SAMPLE-th is and counts LEX_SAMPLE times, as a clock read per token costs about as
+    // much as lexing it. A timed fill longer than LEX_PAUSE was held up by a pause and counts once.
+    private static final int LEX_SAMPLE = 16;
+    private static final long LEX_PAUSE = 200_000;
+    private boolean timed;
+    private long fills;
+    private long lexNanos;
+
     public ListLexer(List<String> input) {
-        if (input.size() == 0)
+        this(LineSource.of(input));
+    }
+
+    public ListLexer(LineSource input) {
+        this(input, new IdentifierPool(), new Diagnostics());
+    }
+
+    public ListLexer(LineSource input, IdentifierPool identifiers, Diagnostics diagnostics) {
+        this(identifiers, diagnostics);
+        reset(input);
+    }
+
+    // has no input until reset
+    public ListLexer(IdentifierPool identifiers, Diagnostics diagnostics) {
+        this.lexer = Lexer.create();
+        this.lexer.setIdentifierPool(identifiers);
+        this.lexer.setDiagnostics(diagnostics);
+    }
+
+    // starts over on another input, tokens not read yet are dropped
+    public void reset(LineSource input) {
+        if (!input.hasNextLine())
             throw new NoSuchElementException("输入为空.");
-        this.input = new ArrayList<>(input);
-        this.lexer = new Lexer();
+        this.input = input;
+        Arrays.fill(ring, null);
+        this.head = 0;
+        this.count = 0;
+        this.peeks = 0;
+        this.consumed = 0;
         this.index = 0;
-        this.lexer.input("Line1", input.get(0));
+        this.fills = 0;
+        this.lexNanos = 0;
+        CharSequence line = input.nextLine();
+        this.bytes = line.length();
+        this.lexer.input(1, line);
     }
 
     public boolean hasNext() {
-        while(index < input.size()) {
-            if (lexer.hasNext()) {
-                return true;
-            } else {
-                if (index + 1 < input.size()) {
-                    index++;
-                    lexer.input("Line" + (index + 1), input.get(index));
-                } else {
-                    return false;
-                }
-            }
+        if (count > 0)
+            return true;
+        while (!lexer.hasNext()) {
+            if (!input.hasNextLine())
+                return false;
+            nextLine();
         }
-        throw new RuntimeException("不会发生.");
+        return true;
     }
 
     public Token next() {
-        if (lexer.isEOF() && index + 1 != input.size())
-            moveToAvailable();
-        return lexer.next();
+        if (count == 0)
+            fill();
+        Token token = ring[head];
+        ring[head] = null;
+        head = (head + 1) & (LOOKAHEAD - 1);
+        count--;
+        consumed++;
+        return token;
+    }
+
+    public Token peek(int n) {
+        if (n >= LOOKAHEAD)
+            throw new IllegalArgumentException("最多向前查看 " + LOOKAHEAD + " 个Token.");
+        while (count <= n)
+            fill();
+        peeks++;
+        return ring[(head + n) & (LOOKAHEAD - 1)];
     }
 
     public Token preNextAndCheckEnd() {
-        if (lexer.isEOF())
-            moveToAvailable();
-        if (lexer.isEOF())
-            throw new UnexpectedEndException(lexer.getPrefix() + ": 意外到达文件结尾.");
-        return lexer.preNext();
+        Token token = peek(0);
+        if (token.getType() == TokenType.EOF)
+            throw new UnexpectedEndException("Line" + ringLines[head] + ": 意外到达文件结尾.");
+        return token;
     }
 
     public Token preNext() {
-        if (lexer.isEOF())
-            moveToAvailable();
-        return lexer.preNext();
+        return peek(0);
+    }
+
+    private void fill() {
+        long fill = fills++;
+        if (!timed || fill >= LEX_SAMPLE && (fill & (LEX_SAMPLE - 1)) != 0) {
+            lex();
+            return;
+        }
+        long start = System.nanoTime();
+        lex();
+        long nanos = System.nanoTime() - start;
+        lexNanos += fill < LEX_SAMPLE || nanos > LEX_PAUSE ? nanos : nanos * LEX_SAMPLE;
+    }
+
+    private void lex() {
+        moveToAvailable();
+        int tail = (head + count) & (LOOKAHEAD - 1);
+        ringLines[tail] = index + 1;
+        ringColumns[tail] = lexer.getColumn();
+        ring[tail] = lexer.next();
+        count++;
+    }
+
+    public TokenBuffer tokenize() {
+        TokenBuffer buffer = new TokenBuffer();
+        while (count > 0) {
+            int line = ringLines[head];
+            int column = ringColumns[head] + 1;
+            Token token = next();
+            buffer.add(token.getType(), line, column, token.getPhrase(), 0, token.getPhrase().length());
+        }
+        lexer.tokenize(buffer);
+        while (input.hasNextLine()) {
+            nextLine();
+            lexer.tokenize(buffer);
+        }
+        buffer.add(TokenType.EOF, index + 1, lexer.getColumn(), "", 0, 0);
+        return buffer;
     }
 
     private void moveToAvailable() {
-        while(lexer.isEOF())
-            if (++index < input.size())
-                lexer.input("Line" + (index + 1), input.get(index));
-            else
-                break;
+        while (lexer.isEOF() && input.hasNextLine())
+            nextLine();
+    }
+
+    private void nextLine() {
+        index++;
+        CharSequence line = input.nextLine();
+        bytes += line.length();
+        lexer.input(index + 1, line);
     }
 
-    public void error(String msg) {
-        lexer.error(msg);
+    // the line of the next token, or of the last token if nothing was peeked
+    public int getLine() {
+        return currentLine();
+    }
+
+    // the position before the next token, or after the last token if nothing was peeked
+    private int currentLine() {
+        return count > 0 ? ringLines[head] : index + 1;
+    }
+
+    private int currentColumn() {
+        return count > 0 ? ringColumns[head] : lexer.getColumn();
+    }
+
+    public void error(DiagnosticCode code, Object... args) {
+        lexer.error(currentLine(), currentColumn(), code, args);
+    }
+
+    public Diagnostics getDiagnostics() {
+        return lexer.getDiagnostics();
     }
 
     public void info(String msg) {
-        lexer.info(msg);
+        lexer.info(currentLine(), msg);
     }
 
     public void skipSemicolon() {
@@ -104,8 +224,43 @@ public class ListLexer {
             next();
     }
 
-    public void printlnLoc() {
-        System.out.println("Line = "  + (index + 1));
-        System.out.println("Col = " + (lexer.getIndex() + 1));
+    public long getPeekCount() {
+        return peeks;
+    }
+
+    public long getConsumedCount() {
+        return consumed;
+    }
+
+    // lines read so far
+    public int getLineCount() {
+        return index + 1;
+    }
+
+    // length of the lines read so far, in bytes for mapped input and chars otherwise
+    public long getByteCount() {
+        return bytes;
+    }
+
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    // estimated from the timed fills
+    public long getLexNanos() {
+        return lexNanos;
+    }
+
+    public double getPeeksPerToken() {
+        return consumed == 0 ? 0 : (double) peeks / consumed;
+    }
+
+    public void setOutput(PrintStream output) {
+        lexer.setOutput(output);
+    }
+
+    public void printlnLoc(PrintStream out) {
+        out.println("Line = "  + currentLine());
+        out.println("Col = " + (currentColumn() + 1));
     }
 }
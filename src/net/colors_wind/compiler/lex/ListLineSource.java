@@ -3,7 +3,7 @@
  *
  * Copyright (c) 2021 ColorsWind
  *
- * File: CodePosReference.java
+ * File: ListLineSource.java
  * Author: ColorsWind
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
@@ -25,40 +25,26 @@
  * SOFTWARE.
  */
 
-package net.colors_wind.compiler.node;
+package net.colors_wind.compiler.lex;
 
-import net.colors_wind.compiler.parse.CodePos;
+import java.util.List;
 
-public class CodePosReference {
+public class ListLineSource implements LineSource {
+    private final List<? extends CharSequence> lines;
+    private int index;
 
-    private CodePos codePos;
-
-    public CodePosReference(CodePos codePos) {
-        this.codePos = codePos;
-    }
-
-    public CodePosReference() {
-        this(new CodePos());
-    }
-
-    public int getCodePos() {
-        return codePos.getPos();
-    }
-
-    public void setCodePos(int pos) {
-        codePos.setPos(pos);
-    }
-
-    public void set(CodePos codePos) {
-        this.codePos = codePos;
+    public ListLineSource(List<? extends CharSequence> lines) {
+        this.lines = lines;
+        this.index = 0;
     }
 
     @Override
-    public String toString() {
-        return codePos.toString();
+    public boolean hasNextLine() {
+        return index < lines.size();
     }
 
-    public CodePos get() {
-        return this.codePos;
+    @Override
+    public CharSequence nextLine() {
+        return lines.get(index++);
     }
 }
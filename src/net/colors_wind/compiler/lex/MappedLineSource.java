@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: MappedLineSource.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines straight out of a (memory-mapped) byte buffer, the returned line
+ * is a view of the buffer and no {@link String} is created for it.
+ */
+public class MappedLineSource implements LineSource {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final ByteLine line;
+    private int position;
+
+    public MappedLineSource(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.line = new ByteLine(buffer);
+        this.position = buffer.position();
+    }
+
+    public static MappedLineSource map(Path path) throws IOException {
+        return new MappedLineSource(mapFile(path));
+    }
+
+    public static ByteBuffer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("文件过大: " + path);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    @Override
+    public boolean hasNextLine() {
+        return position < limit;
+    }
+
+    @Override
+    public CharSequence nextLine() {
+        int begin = position;
+        int end = begin;
+        // the sign bit of any byte >= 0x80 ends up in bits
+        int bits = 0;
+        byte b;
+        while (end < limit && (b = buffer.get(end)) != '\n') {
+            bits |= b;
+            end++;
+        }
+        position = end + 1;
+        if (end > begin && buffer.get(end - 1) == '\r')
+            end--;
+        line.reset(begin, end - begin, bits >= 0);
+        return line;
+    }
+}
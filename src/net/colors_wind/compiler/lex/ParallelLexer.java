@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ParallelLexer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Lexes large sources on a {@link ForkJoinPool}. The input is split into chunks at line
+ * boundaries, every chunk is lexed into its own {@link TokenBuffer} and the buffers are
+ * concatenated in order. Diagnostics are collected per chunk and merged in source order.
+ *
+ * Comments never span lines in Sample (an unterminated comment is reported on its own
+ * line), so the only state a chunk needs from the chunks before it is its first line
+ * number, which a pre-scan counting line feeds provides.
+ */
+public class ParallelLexer {
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+    private static final int MIN_CHUNK_LINES = 1 << 10;
+
+    private final ForkJoinPool pool;
+    private final Lexer.Engine engine;
+
+    public ParallelLexer() {
+        this(ForkJoinPool.commonPool(), Lexer.Engine.DEFAULT);
+    }
+
+    public ParallelLexer(ForkJoinPool pool, Lexer.Engine engine) {
+        this.pool = pool;
+        this.engine = engine;
+    }
+
+    public TokenBuffer tokenize(List<? extends CharSequence> lines, Diagnostics diagnostics) {
+        if (lines.isEmpty())
+            throw new NoSuchElementException("输入为空.");
+        int chunkLines = Math.max(MIN_CHUNK_LINES, lines.size() / (pool.getParallelism() * 4));
+        List<Chunk> chunks = new ArrayList<>();
+        for (int begin = 0; begin < lines.size(); begin += chunkLines) {
+            int end = Math.min(lines.size(), begin + chunkLines);
+            chunks.add(new Chunk(engine, LineSource.of(lines.subList(begin, end)), begin + 1));
+        }
+        return join(chunks, diagnostics);
+    }
+
+    public TokenBuffer tokenize(ByteBuffer buffer, Diagnostics diagnostics) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        if (start == limit)
+            throw new NoSuchElementException("输入为空.");
+        int chunkBytes = Math.max(MIN_CHUNK_BYTES, (limit - start) / (pool.getParallelism() * 4));
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(start);
+        for (int end = start + chunkBytes; end < limit; end += chunkBytes) {
+            while (end < limit && buffer.get(end - 1) != '\n')
+                end++;
+            if (end < limit)
+                bounds.add(end);
+        }
+        bounds.add(limit);
+
+        // pre-scan: the first line number of every chunk
+        int count = bounds.size() - 1;
+        int[] lineFeeds = new int[count];
+        List<ForkJoinTask<?>> scans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            scans.add(pool.submit(() -> {
+                int feeds = 0;
+                for (int j = bounds.get(index); j < bounds.get(index + 1); j++) {
+                    if (buffer.get(j) == '\n')
+                        feeds++;
+                }
+                lineFeeds[index] = feeds;
+            }));
+        }
+        scans.forEach(ForkJoinTask::join);
+
+        List<Chunk> chunks = new ArrayList<>(count);
+        int line = 1;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(bounds.get(i + 1));
+            slice.position(bounds.get(i));
+            chunks.add(new Chunk(engine, new MappedLineSource(slice), line));
+            line += lineFeeds[i];
+        }
+        return join(chunks, diagnostics);
+    }
+
+    private TokenBuffer join(List<Chunk> chunks, Diagnostics diagnostics) {
+        chunks.forEach(pool::execute);
+        TokenBuffer buffer = new TokenBuffer();
+        Chunk last = null;
+        for (Chunk chunk : chunks) {
+            buffer.addAll(chunk.join());
+            diagnostics.addAll(chunk.diagnostics);
+            last = chunk;
+        }
+        buffer.add(TokenType.EOF, last.lastLine, last.lastColumn, "", 0, 0);
+        return buffer;
+    }
+
+    private static class Chunk extends RecursiveTask<TokenBuffer> {
+        private static final long serialVersionUID = 1L;
+        private final Lexer.Engine engine;
+        private final LineSource source;
+        private final int firstLine;
+        private final Diagnostics diagnostics = new Diagnostics();
+        private int lastLine;
+        private int lastColumn;
+
+        Chunk(Lexer.Engine engine, LineSource source, int firstLine) {
+            this.engine = engine;
+            this.source = source;
+            this.firstLine = firstLine;
+        }
+
+        @Override
+        protected TokenBuffer compute() {
+            Lexer lexer = Lexer.create(engine);
+            lexer.setDiagnostics(diagnostics);
+            TokenBuffer buffer = new TokenBuffer();
+            int line = firstLine;
+            while (source.hasNextLine()) {
+                lexer.input(line, source.nextLine());
+                lexer.tokenize(buffer);
+                line++;
+            }
+            lastLine = line - 1;
+            lastColumn = lexer.getColumn();
+            return buffer;
+        }
+    }
+}
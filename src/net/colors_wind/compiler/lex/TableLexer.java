@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: TableLexer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A lexer driven by a char class table and a state x class transition matrix, both are
+ * generated from the single and double delimiters of {@link TokenType}. Produces the
+ * same tokens and errors as {@link Lexer}.
+ */
+public class TableLexer extends Lexer {
+    // char classes
+    private static final int CLASS_OTHER = 0;
+    private static final int CLASS_LETTER = 1;
+    private static final int CLASS_DIGIT = 2;
+    private static final int CLASS_BLANK = 3;
+    private static final int CLASS_QUOTE = 4;
+    private static final int CLASS_END = 5;
+    private static final int CLASS_FIXED = 6;
+
+    // states, the states after the first char of a double delimiter follow
+    private static final int STATE_START = 0;
+    private static final int STATE_IDENTIFIER = 1;
+    private static final int STATE_INTEGER = 2;
+    private static final int STATE_STRING = 3;
+    private static final int STATE_FIXED = 4;
+
+    // action = kind << 16 | argument
+    private static final int SHIFT = 1;           // consume the char, goto state
+    private static final int ACCEPT = 2;          // accept token type before the char
+    private static final int ACCEPT_SHIFT = 3;    // consume the char, accept token type
+    private static final int ERROR_UNKNOWN = 4;
+    private static final int ERROR_STRING = 5;
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final byte[] CHAR_CLASS = new byte[128];
+    private static final int CLASSES;
+    private static final int[] TRANSITIONS;
+
+    static {
+        for (char c : Constants.CHARSET_ALPHABET)
+            CHAR_CLASS[c] = CLASS_LETTER;
+        for (char c : Constants.CHARSET_DIGIT)
+            CHAR_CLASS[c] = CLASS_DIGIT;
+        for (char c : Constants.CHARSET_BLANK)
+            CHAR_CLASS[c] = CLASS_BLANK;
+        CHAR_CLASS['\''] = CLASS_QUOTE;
+
+        // one class for every delimiter char, one state for every first char of a double delimiter
+        int classes = CLASS_FIXED;
+        int states = STATE_FIXED;
+        int[] stateOf = new int[128];
+        for (TokenType type : TYPES) {
+            if (!isDelimiterToken(type))
+                continue;
+            String name = type.getName();
+            for (int i = 0; i < name.length(); i++) {
+                if (CHAR_CLASS[name.charAt(i)] == CLASS_OTHER)
+                    CHAR_CLASS[name.charAt(i)] = (byte) classes++;
+            }
+            if (type.isDoubleDelimiter() && stateOf[name.charAt(0)] == 0)
+                stateOf[name.charAt(0)] = states++;
+        }
+        CLASSES = classes;
+        int[] table = new int[states * CLASSES];
+
+        Arrays.fill(table, STATE_START * CLASSES, (STATE_START + 1) * CLASSES, action(ERROR_UNKNOWN, 0));
+        table[STATE_START * CLASSES + CLASS_LETTER] = action(SHIFT, STATE_IDENTIFIER);
+        table[STATE_START * CLASSES + CLASS_DIGIT] = action(SHIFT, STATE_INTEGER);
+        table[STATE_START * CLASSES + CLASS_QUOTE] = action(SHIFT, STATE_STRING);
+
+        Arrays.fill(table, STATE_IDENTIFIER * CLASSES, (STATE_IDENTIFIER + 1) * CLASSES,
+                action(ACCEPT, TokenType.IDENTIFIER.ordinal()));
+        table[STATE_IDENTIFIER * CLASSES + CLASS_LETTER] = action(SHIFT, STATE_IDENTIFIER);
+        table[STATE_IDENTIFIER * CLASSES + CLASS_DIGIT] = action(SHIFT, STATE_IDENTIFIER);
+
+        Arrays.fill(table, STATE_INTEGER * CLASSES, (STATE_INTEGER + 1) * CLASSES,
+                action(ACCEPT, TokenType.C_INTEGER.ordinal()));
+        table[STATE_INTEGER * CLASSES + CLASS_DIGIT] = action(SHIFT, STATE_INTEGER);
+
+        Arrays.fill(table, STATE_STRING * CLASSES, (STATE_STRING + 1) * CLASSES, action(SHIFT, STATE_STRING));
+        table[STATE_STRING * CLASSES + CLASS_QUOTE] = action(ACCEPT_SHIFT, TokenType.C_STRING.ordinal());
+        table[STATE_STRING * CLASSES + CLASS_END] = action(ERROR_STRING, 0);
+
+        for (TokenType type : TYPES) {
+            if (!isDelimiterToken(type))
+                continue;
+            String name = type.getName();
+            int first = CHAR_CLASS[name.charAt(0)];
+            if (name.length() == 1) {
+                int state = stateOf[name.charAt(0)];
+                if (state == 0) {
+                    table[STATE_START * CLASSES + first] = action(ACCEPT_SHIFT, type.ordinal());
+                } else {
+                    table[STATE_START * CLASSES + first] = action(SHIFT, state);
+                    for (int c = 0; c < CLASSES; c++) {
+                        if (table[state * CLASSES + c] == 0)
+                            table[state * CLASSES + c] = action(ACCEPT, type.ordinal());
+                    }
+                }
+            } else {
+                int slot = stateOf[name.charAt(0)] * CLASSES + CHAR_CLASS[name.charAt(1)];
+                // Lexer.stateDot() does not consume the second `.` of `..`
+                table[slot] = action(type == TokenType.DOUBLE_DOT ? ACCEPT : ACCEPT_SHIFT, type.ordinal());
+            }
+        }
+        TRANSITIONS = table;
+    }
+
+    // comments are skipped between tokens, `/*` and `*/` never start a token
+    private static boolean isDelimiterToken(TokenType type) {
+        return type.isSingularDelimiter()
+                || (type.isDoubleDelimiter() && type != TokenType.COMMENT_START && type != TokenType.COMMENT_END);
+    }
+
+    private static int action(int kind, int argument) {
+        return kind << 16 | argument;
+    }
+
+    @Override
+    TokenType scan() throws NoSuchElementException {
+        int length = input.length();
+        if (index > length)
+            throw new NoSuchElementException("没有更多的Token");
+        else if (index == length) {
+            index++;
+            return TokenType.EOF;
+        }
+        int state = STATE_START;
+        begin = index;
+        while (true) {
+            int charClass = CLASS_END;
+            if (index < length) {
+                char c = input.charAt(index);
+                charClass = c < CHAR_CLASS.length ? CHAR_CLASS[c] : CLASS_OTHER;
+            }
+            int action = TRANSITIONS[state * CLASSES + charClass];
+            int argument = action & 0xFFFF;
+            switch (action >>> 16) {
+                case SHIFT:
+                    state = argument;
+                    index++;
+                    break;
+                case ACCEPT_SHIFT:
+                    index++;
+                    return accept(TYPES[argument]);
+                case ACCEPT:
+                    return accept(TYPES[argument]);
+                case ERROR_STRING:
+                    error(DiagnosticCode.UNTERMINATED_STRING);
+                    return TokenType.NOPE;
+                default:
+                    unknownCharacter();
+                    return TokenType.NOPE;
+            }
+        }
+    }
+
+    private TokenType accept(TokenType type) {
+        end = index;
+        if (type == TokenType.IDENTIFIER) {
+            return Keywords.classify(input, begin, end);
+        } else if (type == TokenType.C_INTEGER) {
+            if (!Constants.isDelimiter(index < input.length() ? input.charAt(index) : '\0'))
+                error(DiagnosticCode.MISSING_DELIMITER);
+        } else if (type == TokenType.C_STRING) {
+            begin++;
+            end--;
+        }
+        return type;
+    }
+}
@@ -31,10 +31,37 @@ package net.colors_wind.compiler.lex;
 public class Token {
     private final TokenType type;
     private final String phrase;
+    // the IdentifierPool id of an IDENTIFIER, -1 otherwise
+    private final int id;
 
     public Token(TokenType type, String phrase) {
+        this(type, phrase, -1);
+    }
+
+    public Token(TokenType type, String phrase, int id) {
         this.type = type;
         this.phrase = phrase;
+        this.id = id;
+    }
+
+    // tokens with a fixed phrase are immutable and shared
+    private static final Token[] FIXED = new Token[TokenType.values().length];
+    static {
+        for (TokenType type : TokenType.values()) {
+            if (type == TokenType.NOPE)
+                FIXED[type.ordinal()] = new Token(type, "ERROR");
+            else if (type == TokenType.EOF)
+                FIXED[type.ordinal()] = new Token(type, "-");
+            else if (type.hasFixedPhrase())
+                FIXED[type.ordinal()] = new Token(type, type.getName());
+        }
+    }
+
+    public static Token of(TokenType type) {
+        Token token = FIXED[type.ordinal()];
+        if (token == null)
+            throw new IllegalArgumentException("Token " + type.name() + " 没有固定的短语.");
+        return token;
     }
 
     public TokenType getType() {
@@ -45,6 +72,10 @@ public class Token {
         return phrase;
     }
 
+    public int getId() {
+        return id;
+    }
+
     @Override
     public String toString() {
         return "(" + type.getIndex() + ", " + phrase + ")";
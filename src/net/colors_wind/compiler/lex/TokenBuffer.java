@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: TokenBuffer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import java.util.Arrays;
+
+/**
+ * Stores tokens as parallel arrays, phrases of identifiers and constants are copied
+ * into a shared char pool. {@link Token} and phrase strings are only created on request.
+ */
+public class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private int size;
+    private int[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int[] columns;
+
+    private char[] text;
+    private int textLength;
+
+    public TokenBuffer() {
+        this(256);
+    }
+
+    public TokenBuffer(int capacity) {
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.text = new char[capacity * 4];
+    }
+
+    public void add(TokenType type, int line, int column, CharSequence input, int begin, int end) {
+        if (size == types.length)
+            grow();
+        int start = textLength;
+        if (!type.hasFixedPhrase()) {
+            int length = end - begin;
+            if (textLength + length > text.length)
+                text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+            for (int i = begin; i < end; i++)
+                text[textLength++] = input.charAt(i);
+        }
+        types[size] = type.ordinal();
+        starts[size] = start;
+        ends[size] = textLength;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+    }
+
+    public void addAll(TokenBuffer other) {
+        while (size + other.size > types.length)
+            grow();
+        if (textLength + other.textLength > text.length)
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + other.textLength));
+        System.arraycopy(other.text, 0, text, textLength, other.textLength);
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.lines, 0, lines, size, other.size);
+        System.arraycopy(other.columns, 0, columns, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            starts[size + i] = other.starts[i] + textLength;
+            ends[size + i] = other.ends[i] + textLength;
+        }
+        size += other.size;
+        textLength += other.textLength;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+        textLength = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType getType(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int getStart(int i) {
+        return starts[i];
+    }
+
+    public int getEnd(int i) {
+        return ends[i];
+    }
+
+    public int getLine(int i) {
+        return lines[i];
+    }
+
+    public int getColumn(int i) {
+        return columns[i];
+    }
+
+    public char[] getText() {
+        return text;
+    }
+
+    public String getPhrase(int i) {
+        TokenType type = getType(i);
+        if (type.hasFixedPhrase())
+            return Token.of(type).getPhrase();
+        return new String(text, starts[i], ends[i] - starts[i]);
+    }
+
+    public Token getToken(int i) {
+        TokenType type = getType(i);
+        if (type.hasFixedPhrase())
+            return Token.of(type);
+        return new Token(type, getPhrase(i));
+    }
+}
@@ -156,6 +156,7 @@ public enum TokenType {
             case COLON:
             case SEMICOLON:
             case LESS_THAN:
+            case EQUAL:
             case MORE_THAN:
             case LEFT_PARENTHESIS:
             case RIGHT_PARENTHESIS:
@@ -182,6 +183,10 @@ public enum TokenType {
         return this == TRUE || this == FALSE;
     }
 
+    public boolean hasFixedPhrase() {
+        return this != IDENTIFIER && this != C_INTEGER && this != C_STRING;
+    }
+
     public boolean isConstant() {
         return isString() || isBoolean() || isInteger();
     }
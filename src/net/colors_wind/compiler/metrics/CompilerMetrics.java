@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompilerMetrics.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.metrics;
+
+import net.colors_wind.compiler.parse.CompileStats;
+import net.colors_wind.compiler.parse.Program;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Totals of the {@link CompileStats} of every compilation recorded while enabled. Compilations
+ * are only timed while enabled, so a disabled instance costs the counters each compilation keeps
+ * anyway. {@link #register()} makes the process wide instance readable through JMX.
+ */
+public class CompilerMetrics implements CompilerMetricsMBean {
+    public static final String OBJECT_NAME = "net.colors_wind.compiler:type=CompilerMetrics";
+    private static final CompilerMetrics INSTANCE = new CompilerMetrics();
+
+    private volatile boolean enabled;
+    private final CompileStats total = new CompileStats();
+
+    public static CompilerMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    // registers the process wide instance with the platform MBean server, once
+    public static void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // to be called before compiling with program
+    public void prepare(Program program) {
+        program.setTimed(enabled);
+    }
+
+    // adds what program did in its last compilation, if enabled
+    public void record(Program program, boolean failed) {
+        if (!enabled)
+            return;
+        CompileStats stats = program.getStats();
+        if (failed)
+            stats.fail();
+        add(stats);
+    }
+
+    // adds a compilation that failed before a program was set up for it, if enabled
+    public void recordFailure() {
+        if (enabled)
+            add(CompileStats.failed());
+    }
+
+    private void add(CompileStats stats) {
+        synchronized (total) {
+            total.add(stats);
+        }
+    }
+
+    public CompileStats snapshot() {
+        synchronized (total) {
+            return new CompileStats(total);
+        }
+    }
+
+    @Override
+    public long getCompilations() {
+        return snapshot().getCompilations();
+    }
+
+    @Override
+    public long getFailures() {
+        return snapshot().getFailures();
+    }
+
+    @Override
+    public long getLines() {
+        return snapshot().getLines();
+    }
+
+    @Override
+    public long getBytes() {
+        return snapshot().getBytes();
+    }
+
+    @Override
+    public long getTokens() {
+        return snapshot().getTokens();
+    }
+
+    @Override
+    public double getLexMillis() {
+        return snapshot().getLexNanos() / 1e6;
+    }
+
+    @Override
+    public double getLexBytesPerSecond() {
+        return snapshot().getLexBytesPerSecond();
+    }
+
+    @Override
+    public long getProductions() {
+        return snapshot().getProductions();
+    }
+
+    @Override
+    public long getPeeks() {
+        return snapshot().getPeeks();
+    }
+
+    @Override
+    public double getParseMillis() {
+        return snapshot().getParseNanos() / 1e6;
+    }
+
+    @Override
+    public long getLookups() {
+        return snapshot().getLookups();
+    }
+
+    @Override
+    public long getTemporaries() {
+        return snapshot().getTemporaries();
+    }
+
+    @Override
+    public long getQuads() {
+        return snapshot().getQuads();
+    }
+
+    @Override
+    public long getBackpatches() {
+        return snapshot().getBackpatches();
+    }
+
+    @Override
+    public double getGenerateMillis() {
+        CompileStats stats = snapshot();
+        // not measured apart from parsing when emitting directly
+        return stats.getGenerations() == 0 ? Double.NaN : stats.getGenerateNanos() / 1e6;
+    }
+
+    @Override
+    public String getJson() {
+        return snapshot().toJson();
+    }
+
+    @Override
+    public void reset() {
+        synchronized (total) {
+            total.clear();
+        }
+    }
+}
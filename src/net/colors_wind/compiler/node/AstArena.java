@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: AstArena.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.node;
+
+import net.colors_wind.compiler.trans.SymbolType;
+
+import java.util.Arrays;
+
+/**
+ * A syntax tree stored as parallel int arrays, a node is its index. Children are linked
+ * by first child / next sibling and always added before their parent.
+ */
+public class AstArena {
+    public static final int NONE = -1;
+    // the type column of an expression producing jumps instead of a value
+    public static final int TYPE_BRANCH = -1;
+    // the type column of an expression (and of any statement) without a value
+    public static final int TYPE_NONE = -2;
+
+    private int[] kinds = new int[64];
+    private int[] values = new int[64];
+    private int[] types = new int[64];
+    private int[] lines = new int[64];
+    private int[] firstChildren = new int[64];
+    private int[] nextSiblings = new int[64];
+    private int size;
+    private int root = NONE;
+
+    public int add(AstKind kind, int value, int type, int line) {
+        if (size == kinds.length)
+            grow();
+        kinds[size] = kind.ordinal();
+        values[size] = value;
+        types[size] = type;
+        lines[size] = line;
+        firstChildren[size] = NONE;
+        nextSiblings[size] = NONE;
+        return size++;
+    }
+
+    public int add(AstKind kind, int value, int type, int line, int child) {
+        int node = add(kind, value, type, line);
+        firstChildren[node] = child;
+        return node;
+    }
+
+    public int add(AstKind kind, int value, int type, int line, int first, int second) {
+        nextSiblings[first] = second;
+        return add(kind, value, type, line, first);
+    }
+
+    public int add(AstKind kind, int value, int type, int line, int first, int second, int third) {
+        nextSiblings[second] = third;
+        return add(kind, value, type, line, first, second);
+    }
+
+    // children[from, to) become the children of the new node
+    public int add(AstKind kind, int value, int type, int line, int[] children, int from, int to) {
+        for (int i = from + 1; i < to; i++)
+            nextSiblings[children[i - 1]] = children[i];
+        return add(kind, value, type, line, from < to ? children[from] : NONE);
+    }
+
+    private void grow() {
+        int length = size * 2;
+        kinds = Arrays.copyOf(kinds, length);
+        values = Arrays.copyOf(values, length);
+        types = Arrays.copyOf(types, length);
+        lines = Arrays.copyOf(lines, length);
+        firstChildren = Arrays.copyOf(firstChildren, length);
+        nextSiblings = Arrays.copyOf(nextSiblings, length);
+    }
+
+    public AstKind getKind(int node) {
+        return AstKind.valueOf(kinds[node]);
+    }
+
+    public int getValue(int node) {
+        return values[node];
+    }
+
+    // SymbolType ordinal, TYPE_BRANCH or TYPE_NONE
+    public int getType(int node) {
+        return types[node];
+    }
+
+    public SymbolType getSymbolType(int node) {
+        return types[node] >= 0 ? SymbolType.values()[types[node]] : null;
+    }
+
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int getChild(int node, int index) {
+        int child = firstChildren[node];
+        for (int i = 0; i < index && child != NONE; i++)
+            child = nextSiblings[child];
+        return child;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public void setRoot(int root) {
+        this.root = root;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        root = NONE;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: AstKind.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.node;
+
+public enum AstKind {
+    // value: 1 if the program was closed by `.`, child: BLOCK
+    PROGRAM,
+    // children: the statements
+    BLOCK,
+    // value: id of the assigned symbol, NONE if the value is not stored; child: the expression
+    ASSIGN,
+    // children: condition, statement
+    IF,
+    // children: condition, statement, else statement
+    IF_ELSE,
+    // children: condition, statement
+    WHILE,
+    // children: statement, condition
+    REPEAT,
+    // a condition whose statement could not be parsed, child: the condition
+    CONDITION,
+    // a missing statement or operand
+    EMPTY,
+    // value: the integer
+    INTEGER,
+    // value: 1 for true, 0 for false
+    BOOLEAN,
+    // value: symbol id
+    SYMBOL,
+    // unary minus, child: operand
+    NEGATE,
+    // value: OperatorType ordinal (+ - * / and or), children: left, right
+    BINARY,
+    // value: OperatorType ordinal of the jump or NONE if incomplete, children: left, right
+    RELATION,
+    // `not`, a condition with the jumps of its operand swapped, child: operand
+    NOT;
+
+    private static final AstKind[] VALUES = values();
+
+    public static AstKind valueOf(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
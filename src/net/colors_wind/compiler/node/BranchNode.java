@@ -27,43 +27,45 @@
 
 package net.colors_wind.compiler.node;
 
-import net.colors_wind.compiler.parse.CodePos;
+import net.colors_wind.compiler.trans.TACodeBuffer;
 
+/**
+ * A condition as the backpatch lists of the jumps taken when it is true and when it is false,
+ * see {@link TACodeBuffer}.
+ */
 public class BranchNode extends Node {
-    private final CodePosReference trueGo = new CodePosReference();
-    private final CodePosReference falseGo = new CodePosReference();
+    private final TACodeBuffer codes;
+    private int trueList;
+    private int falseList;
 
-    public BranchNode(int codePos) {
+    public BranchNode(int codePos, TACodeBuffer codes, int trueList, int falseList) {
         super(codePos);
+        this.codes = codes;
+        this.trueList = trueList;
+        this.falseList = falseList;
     }
 
     public void setTrueGo(int pos) {
-        this.trueGo.setCodePos(pos);
+        codes.backpatch(trueList, pos);
+        trueList = TACodeBuffer.EMPTY;
     }
     public void setFalseGo(int pos) {
-        this.falseGo.setCodePos(pos);
-    }
-    public void setTrueGo(CodePos trueGo) {
-        this.trueGo.set(trueGo);
-    }
-    public void setFalseGo(CodePos falseGo) {
-        this.falseGo.set(falseGo);
+        codes.backpatch(falseList, pos);
+        falseList = TACodeBuffer.EMPTY;
     }
 
-
-    public CodePosReference getTrueGo() {
-        return trueGo;
+    public int getTrueList() {
+        return trueList;
     }
-    public CodePosReference getFalseGo() {
-        return falseGo;
+    public int getFalseList() {
+        return falseList;
     }
 
-    public CodePos getTrueGoPos() {
-        return trueGo.get();
+    public void setTrueList(int trueList) {
+        this.trueList = trueList;
     }
-
-    public CodePos getFalseGoPos() {
-        return falseGo.get();
+    public void setFalseList(int falseList) {
+        this.falseList = falseList;
     }
 
 
@@ -75,8 +77,8 @@ public class BranchNode extends Node {
     @Override
     public String toString() {
         return "BranchNode{" +
-                "trueGo=" + trueGo + "@" + trueGo.hashCode() +
-                ", falseGo=" + falseGo + "@" + falseGo.hashCode() +
+                "trueList=" + trueList +
+                ", falseList=" + falseList +
                 '}';
     }
 
@@ -27,7 +27,6 @@
 
 package net.colors_wind.compiler.node;
 
-import net.colors_wind.compiler.parse.CodePos;
 import net.colors_wind.compiler.trans.Symbol;
 import net.colors_wind.compiler.trans.SymbolType;
 
@@ -64,17 +63,17 @@ public abstract class Node {
     public void setFalseGo(int pos) {
         throw new UnsupportedOperationException();
     }
-    public void setTrueGo(CodePos trueGo) {
+
+    public int getTrueList() {
         throw new UnsupportedOperationException();
     }
-    public void setFalseGo(CodePos falseGo) {
+    public int getFalseList() {
         throw new UnsupportedOperationException();
     }
-
-    public CodePosReference getTrueGo() {
+    public void setTrueList(int trueList) {
         throw new UnsupportedOperationException();
     }
-    public CodePosReference getFalseGo() {
+    public void setFalseList(int falseList) {
         throw new UnsupportedOperationException();
     }
 
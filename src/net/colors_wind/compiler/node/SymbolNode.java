@@ -53,7 +53,7 @@ public class SymbolNode extends Node {
 
     @Override
     public Object getVarOrImmediate() {
-        return getVarName();
+        return symbol;
     }
 
     @Override
@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.trans.OperatorType;
 import net.colors_wind.compiler.trans.Symbol;
 import net.colors_wind.compiler.trans.SymbolType;
@@ -39,7 +40,7 @@ import net.colors_wind.compiler.node.SymbolNode;
 
 import java.util.Optional;
 
-public class ArithmeticExpression {
+public class ArithmeticExpression implements OperatorGrammar {
     private final Program program;
     private final ListLexer lexer;
 
@@ -48,61 +49,87 @@ public class ArithmeticExpression {
         this.lexer = program.getLexer();
     }
 
+    @Override
+    public OperatorType getOperator(TokenType type) {
+        return type.isPlusOrMinus() || type.isMultiplyOrDivide() ? OperatorType.fromTokenType(type) : null;
+    }
+
+    @Override
+    public int getMaxPrecedence() {
+        return OperatorType.MULTIPLY.getPrecedence();
+    }
+
+    @Override
+    public Node parseOperand() {
+        return parseArithmeticFactor();
+    }
+
+    @Override
+    public Node merge(Node left, Node right, OperatorType operatorType) {
+        if (isDivideByZero(right, operatorType))
+            lexer.error(DiagnosticCode.DIVIDE_BY_ZERO);
+        return emitBinary(left, right, operatorType);
+    }
 
-    private Node arithmeticMerge(Node[] nodes, OperatorType operatorType) {
+    Node emitBinary(Node left, Node right, OperatorType operatorType) {
         Symbol symbol = program.getSymbolTable().newTmp();
         symbol.setType(SymbolType.INTEGER);
         Node node = new SymbolNode(program.nextPos(), symbol);
-        if (operatorType == OperatorType.DIVIDE && nodes[1].getType() == NodeType.IMMEDIATE
-                && Integer.parseInt(nodes[1].getImmediate().toString()) == 0) {
-            lexer.error("除数不能为0.");
+        if (isDivideByZero(right, operatorType)) {
             program.emit(OperatorType.ASSIGNMENT,
-                    nodes[0].getVarOrImmediate(),
+                    left.getVarOrImmediate(),
                     "-",
-                    symbol.getName());
+                    symbol);
         } else {
             program.emit(operatorType,
-                    nodes[0].getVarOrImmediate(),
-                    nodes[1].getVarOrImmediate(),
-                    symbol.getName());
+                    left.getVarOrImmediate(),
+                    right.getVarOrImmediate(),
+                    symbol);
         }
 
         return node;
     }
 
-    public Optional<Node> parseArithmeticExpression() {
-        return program.getExpression().parseBNFLoop(this::parseArithmeticTerm, TokenType::isPlusOrMinus, this::arithmeticMerge);
+    private static boolean isDivideByZero(Node right, OperatorType operatorType) {
+        return operatorType == OperatorType.DIVIDE && right.getType() == NodeType.IMMEDIATE
+                && Integer.parseInt(right.getImmediate().toString()) == 0;
     }
 
+    Node emitNegate(Node node) {
+        Symbol symbol = program.getSymbolTable().newTmp();
+        symbol.setType(SymbolType.INTEGER);
+        Node minus = new SymbolNode(symbol);
+        program.emit(OperatorType.MINUS, node.getVarOrImmediate(), "-", symbol);
+        return minus;
+    }
 
-    public Optional<Node> parseArithmeticTerm() {
-        return program.getExpression().parseBNFLoop(this::parseArithmeticFactor, TokenType::isMultiplyOrDivide, this::arithmeticMerge);
+    public Optional<Node> parseArithmeticExpression() {
+        return Optional.ofNullable(program.getExpression().parseBinary(this));
     }
 
-    public Optional<Node> parseArithmeticFactor() {
+    Node parseArithmeticFactor() {
+        program.production();
         if (lexer.preNextAndCheckEnd().getType() == TokenType.MINUS) {
             lexer.next();
-            return parseArithmeticFactor().map(node -> {
-                Symbol symbol = program.getSymbolTable().newTmp();
-                symbol.setType(SymbolType.INTEGER);
-                Node minus = new SymbolNode(symbol);
-                program.emit(OperatorType.MINUS, node.getVarOrImmediate(), "-", symbol.getName());
-                return minus;
-            });
+            Node node = parseArithmeticFactor();
+            return node == null ? null : emitNegate(node);
         }
         return parseArithmeticValue();
     }
 
-    public Optional<Node> parseArithmeticValue() {
+    Node parseArithmeticValue() {
         Token token = lexer.preNextAndCheckEnd();
-        if (token.getType() == TokenType.C_INTEGER)
-            return program.getExpression().parseImmediate(SymbolType.INTEGER, Integer::valueOf);
-        else if (token.getType() == TokenType.IDENTIFIER)
+        if (token.getType() == TokenType.C_INTEGER) {
+            return program.getExpression().parseImmediate(SymbolType.INTEGER);
+        } else if (token.getType() == TokenType.IDENTIFIER) {
             return program.getExpression().parseSymbol(SymbolType.INTEGER);
-        else if (token.getType() == TokenType.LEFT_PARENTHESIS)
-            return program.getExpression().parseBrackets(this::parseArithmeticExpression);
-        else
-            lexer.error("格式不匹配， 预期: `<整数>│<标识符>│(<算术表达式)`");
-        return Optional.empty();
+        } else if (token.getType() == TokenType.LEFT_PARENTHESIS) {
+            lexer.next();
+            Node node = program.getExpression().parseBinary(this);
+            program.getExpression().closeParenthesis();
+            return node;
+        }
+        lexer.error(DiagnosticCode.UNEXPECTED_ARITHMETIC_VALUE);
+        return null;
     }
 }
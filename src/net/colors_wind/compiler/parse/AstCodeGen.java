@@ -0,0 +1,336 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: AstCodeGen.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import net.colors_wind.compiler.node.AstArena;
+import net.colors_wind.compiler.node.AstKind;
+import net.colors_wind.compiler.node.BranchNode;
+import net.colors_wind.compiler.node.ImmediateNode;
+import net.colors_wind.compiler.node.Node;
+import net.colors_wind.compiler.node.SymbolNode;
+import net.colors_wind.compiler.trans.OperatorType;
+import net.colors_wind.compiler.trans.SymbolType;
+
+import java.util.Arrays;
+
+import static net.colors_wind.compiler.node.AstArena.NONE;
+
+/**
+ * Emits the codes of a tree built by {@link AstParser}, in the order and with the temporaries
+ * that parsing with direct emission gives. The tree is walked with an explicit stack of tasks,
+ * every node visited leaves its value (null for statements and missing values) on the value stack.
+ */
+public class AstCodeGen {
+    private static final OperatorType[] OPERATORS = OperatorType.values();
+
+    // tasks, run with the node and an extra int
+    private static final int VISIT = 0;
+    private static final int DISCARD = 1;
+    private static final int BLOCK_NEXT = 2;
+    private static final int PROGRAM_END = 3;
+    private static final int CONDITION_END = 4;
+    private static final int ASSIGN_END = 5;
+    private static final int IF_THEN = 6;
+    private static final int IF_ELSE = 7;
+    private static final int IF_END = 8;
+    private static final int WHILE_BODY = 9;
+    private static final int WHILE_END = 10;
+    private static final int REPEAT_END = 11;
+    private static final int NEGATE_END = 12;
+    private static final int BINARY_END = 13;
+    private static final int RELATION_END = 14;
+    private static final int NOT_END = 15;
+
+    private final Program program;
+    private final ArithmeticExpression arithmeticExpression;
+    private final BooleanExpression booleanExpression;
+    private AstArena arena;
+    // task, node, extra
+    private int[] tasks = new int[96];
+    private int taskTop;
+    private Node[] values = new Node[32];
+    private int valueTop;
+    // branches whose targets are set by a later task
+    private BranchNode[] pending = new BranchNode[32];
+    private int pendingTop;
+
+    public AstCodeGen(Program program) {
+        this.program = program;
+        this.arithmeticExpression = program.getArithmeticExpression();
+        this.booleanExpression = program.getBooleanExpression();
+    }
+
+    public void generate(AstArena arena) {
+        this.arena = arena;
+        try {
+            push(VISIT, arena.getRoot(), 0);
+            while (taskTop > 0) {
+                taskTop -= 3;
+                run(tasks[taskTop], tasks[taskTop + 1], tasks[taskTop + 2]);
+            }
+        } finally {
+            taskTop = 0;
+            Arrays.fill(values, 0, valueTop, null);
+            valueTop = 0;
+            Arrays.fill(pending, 0, pendingTop, null);
+            pendingTop = 0;
+        }
+    }
+
+    private void run(int task, int node, int extra) {
+        switch (task) {
+            case VISIT:
+                visit(node);
+                break;
+            case DISCARD:
+                popValue();
+                break;
+            case BLOCK_NEXT:
+                if (extra == NONE) {
+                    pushValue(null);
+                } else {
+                    push(BLOCK_NEXT, node, arena.getNextSibling(extra));
+                    push(DISCARD, node, 0);
+                    push(VISIT, extra, 0);
+                }
+                break;
+            case PROGRAM_END:
+                popValue();
+                if (arena.getValue(node) == 1)
+                    program.emit(OperatorType.END, "-", "-", "-");
+                pushValue(null);
+                break;
+            case CONDITION_END:
+                booleanExpression.extendToBranch(popValue());
+                pushValue(null);
+                break;
+            case ASSIGN_END: {
+                Node value = popValue();
+                if (value != null && arena.getValue(node) != NONE)
+                    program.emit(OperatorType.ASSIGNMENT, value.getVarOrImmediate(), "-",
+                            program.getSymbolTable().get(arena.getValue(node)));
+                pushValue(null);
+                break;
+            }
+            case IF_THEN: {
+                BranchNode branchNode = booleanExpression.extendToBranch(popValue());
+                branchNode.setTrueGo(program.nextPos());
+                pushPending(branchNode);
+                int then = arena.getNextSibling(arena.getFirstChild(node));
+                push(IF_ELSE, node, then);
+                push(DISCARD, node, 0);
+                push(VISIT, then, 0);
+                break;
+            }
+            case IF_ELSE: {
+                BranchNode branchNode = popPending();
+                int otherwise = arena.getNextSibling(extra);
+                if (otherwise == NONE) {
+                    branchNode.setFalseGo(program.nextPos());
+                    pushValue(null);
+                    break;
+                }
+                int jump = program.emitJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+                branchNode.setFalseGo(program.nextPos());
+                push(IF_END, node, jump);
+                push(DISCARD, node, 0);
+                push(VISIT, otherwise, 0);
+                break;
+            }
+            case IF_END:
+                program.backpatch(extra, program.nextPos());
+                pushValue(null);
+                break;
+            case WHILE_BODY: {
+                BranchNode branchNode = booleanExpression.extendToBranch(popValue());
+                branchNode.setTrueGo(program.nextPos());
+                pushPending(branchNode);
+                push(WHILE_END, node, 0);
+                push(DISCARD, node, 0);
+                push(VISIT, arena.getNextSibling(arena.getFirstChild(node)), 0);
+                break;
+            }
+            case WHILE_END: {
+                BranchNode branchNode = popPending();
+                program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", branchNode.getCodePos());
+                branchNode.setFalseGo(program.nextPos());
+                pushValue(null);
+                break;
+            }
+            case REPEAT_END: {
+                Node condition = popValue();
+                if (condition != null) {
+                    BranchNode branchNode = booleanExpression.extendToBranch(condition);
+                    branchNode.setTrueGo(program.nextPos());
+                    branchNode.setFalseGo(extra);
+                }
+                pushValue(null);
+                break;
+            }
+            case NEGATE_END:
+                pushValue(arithmeticExpression.emitNegate(popValue()));
+                break;
+            case BINARY_END: {
+                Node right = popValue();
+                Node left = popValue();
+                if (left == null)
+                    pushValue(right);
+                else if (right == null)
+                    pushValue(left);
+                else
+                    pushValue(merge(left, right, OPERATORS[arena.getValue(node)]));
+                break;
+            }
+            case RELATION_END: {
+                Node right = popValue();
+                Node left = popValue();
+                if (arena.getValue(node) == NONE)
+                    pushValue(null);
+                else
+                    pushValue(booleanExpression.emitRelation(left, OPERATORS[arena.getValue(node)], right));
+                break;
+            }
+            case NOT_END: {
+                Node operand = popValue();
+                if (operand == null) {
+                    pushValue(null);
+                    break;
+                }
+                BranchNode branchNode = booleanExpression.extendToBranch(operand);
+                booleanExpression.negate(branchNode);
+                pushValue(branchNode);
+                break;
+            }
+            default:
+                throw new IllegalStateException(String.valueOf(task));
+        }
+    }
+
+    private void visit(int node) {
+        int first = arena.getFirstChild(node);
+        switch (arena.getKind(node)) {
+            case PROGRAM:
+                program.emit(OperatorType.PROGRAM, program.getProgramName(), "-", "-");
+                push(PROGRAM_END, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case BLOCK:
+                push(BLOCK_NEXT, node, first);
+                break;
+            case CONDITION:
+                push(CONDITION_END, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case ASSIGN:
+                push(ASSIGN_END, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case IF:
+            case IF_ELSE:
+                push(IF_THEN, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case WHILE:
+                push(WHILE_BODY, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case REPEAT:
+                push(REPEAT_END, node, program.nextPos());
+                push(VISIT, arena.getNextSibling(first), 0);
+                push(DISCARD, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case EMPTY:
+                pushValue(null);
+                break;
+            case INTEGER:
+                pushValue(new ImmediateNode(arena.getValue(node), SymbolType.INTEGER));
+                break;
+            case BOOLEAN:
+                pushValue(new ImmediateNode(arena.getValue(node) == 1, SymbolType.BOOLEAN));
+                break;
+            case SYMBOL:
+                pushValue(new SymbolNode(program.getSymbolTable().get(arena.getValue(node))));
+                break;
+            case NEGATE:
+                push(NEGATE_END, node, 0);
+                push(VISIT, first, 0);
+                break;
+            case BINARY:
+            case RELATION:
+                push(arena.getKind(node) == AstKind.BINARY ? BINARY_END : RELATION_END, node, 0);
+                push(VISIT, arena.getNextSibling(first), 0);
+                push(VISIT, first, 0);
+                break;
+            case NOT:
+                push(NOT_END, node, 0);
+                push(VISIT, first, 0);
+                break;
+            default:
+                throw new IllegalStateException(arena.getKind(node).name());
+        }
+    }
+
+    private Node merge(Node left, Node right, OperatorType operator) {
+        if (operator == OperatorType.AND || operator == OperatorType.OR)
+            return booleanExpression.merge(left, right, operator);
+        return arithmeticExpression.emitBinary(left, right, operator);
+    }
+
+    private void push(int task, int node, int extra) {
+        if (taskTop + 3 > tasks.length)
+            tasks = Arrays.copyOf(tasks, tasks.length * 2);
+        tasks[taskTop++] = task;
+        tasks[taskTop++] = node;
+        tasks[taskTop++] = extra;
+    }
+
+    private void pushValue(Node value) {
+        if (valueTop == values.length)
+            values = Arrays.copyOf(values, valueTop * 2);
+        values[valueTop++] = value;
+    }
+
+    private Node popValue() {
+        Node value = values[--valueTop];
+        values[valueTop] = null;
+        return value;
+    }
+
+    private void pushPending(BranchNode target) {
+        if (pendingTop == pending.length)
+            pending = Arrays.copyOf(pending, pendingTop * 2);
+        pending[pendingTop++] = target;
+    }
+
+    private BranchNode popPending() {
+        BranchNode target = pending[--pendingTop];
+        pending[pendingTop] = null;
+        return target;
+    }
+}
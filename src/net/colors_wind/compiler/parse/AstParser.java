@@ -0,0 +1,661 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: AstParser.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
+import net.colors_wind.compiler.lex.ListLexer;
+import net.colors_wind.compiler.lex.Token;
+import net.colors_wind.compiler.lex.TokenType;
+import net.colors_wind.compiler.node.AstArena;
+import net.colors_wind.compiler.node.AstKind;
+import net.colors_wind.compiler.trans.OperatorType;
+import net.colors_wind.compiler.trans.Symbol;
+import net.colors_wind.compiler.trans.SymbolType;
+
+import java.util.Arrays;
+
+import static net.colors_wind.compiler.node.AstArena.NONE;
+import static net.colors_wind.compiler.node.AstArena.TYPE_BRANCH;
+import static net.colors_wind.compiler.node.AstArena.TYPE_NONE;
+
+/**
+ * Parses the statement part of a program into an {@link AstArena} instead of emitting codes,
+ * {@link AstCodeGen} generates them from the tree afterwards. The grammar, the error recovery
+ * and the diagnostics are those of {@link Statement} and the expression parsers; checks that
+ * they do while emitting (types, division by zero) are done when the node is added.
+ * <p>
+ * The parser does not recurse: each routine is split into states at the points where it
+ * would call another one, the caller's locals and the state to go on with are pushed on
+ * {@link #frames}, so nesting depth is only limited by the heap.
+ */
+public class AstParser {
+    private static final OperatorType[] OPERATORS = OperatorType.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    // routines
+    private static final int STATEMENT = 0;
+    private static final int STATEMENT_LIST = 1;
+    private static final int ASSIGNMENT = 2;
+    private static final int IF = 3;
+    private static final int WHILE = 4;
+    private static final int REPEAT = 5;
+    private static final int EXPRESSION = 6;
+    private static final int ARITHMETIC_EXPRESSION = 7;
+    private static final int BOOLEAN_EXPRESSION = 8;
+    private static final int ARITHMETIC_FACTOR = 9;
+    private static final int BOOLEAN_FACTOR = 10;
+    private static final int BOOLEAN_VALUE = 11;
+    // continuations, the locals they pop are listed top first
+    private static final int DONE = 12;
+    private static final int INNER_END = 13;
+    // base, line
+    private static final int STATEMENT_LIST_NEXT = 14;
+    // symbol id, line
+    private static final int ASSIGNMENT_END = 15;
+    // line
+    private static final int IF_CONDITION = 16;
+    // condition, line
+    private static final int IF_THEN = 17;
+    // then, condition, line
+    private static final int IF_ELSE = 18;
+    // line
+    private static final int WHILE_CONDITION = 19;
+    // condition, line
+    private static final int WHILE_BODY = 20;
+    // line
+    private static final int REPEAT_BODY = 21;
+    // body, line
+    private static final int REPEAT_CONDITION = 22;
+    // base, keyword, line
+    private static final int SKIP_BODY_NEXT = 23;
+    private static final int SKIP_BODY_END = 24;
+    private static final int CLOSE_PARENTHESIS = 25;
+    // node base, operator base, 1 if arithmetic
+    private static final int BINARY_OPERAND = 26;
+    // line
+    private static final int NEGATE_END = 27;
+    // line
+    private static final int NOT_FACTOR = 28;
+    // line
+    private static final int RELATION_LEFT = 29;
+    // relational operator, left, line
+    private static final int RELATION_RIGHT = 30;
+
+    private final Program program;
+    private final ListLexer lexer;
+    private AstArena arena;
+    // locals and continuations of the routines being run
+    private int[] frames = new int[64];
+    private int frameTop;
+    // what the last finished routine returned
+    private int result;
+    // nodes of the statement lists and expressions being parsed, nested ones use the part above
+    private int[] nodes = new int[16];
+    private int nodeTop;
+    private int[] operators = new int[16];
+    private int operatorTop;
+
+    public AstParser(Program program) {
+        this.program = program;
+        this.lexer = program.getLexer();
+    }
+
+    public int parse(AstArena arena) {
+        this.arena = arena;
+        if (lexer.preNextAndCheckEnd().getType() != TokenType.BEGIN)
+            lexer.error(DiagnosticCode.MISSING_BEGIN);
+        else
+            lexer.next();
+        int block = run(STATEMENT_LIST);
+        if (lexer.preNext().getType() != TokenType.END) {
+            lexer.error(DiagnosticCode.MISSING_END);
+            return block;
+        }
+        lexer.next();
+        return block;
+    }
+
+    private int run(int routine) {
+        try {
+            push(DONE);
+            int state = routine;
+            while (state != DONE)
+                state = step(state);
+            return result;
+        } finally {
+            frameTop = 0;
+            nodeTop = 0;
+            operatorTop = 0;
+        }
+    }
+
+    // runs a state, returns the next one
+    private int step(int state) {
+        switch (state) {
+            case STATEMENT:
+                program.production();
+                return statement();
+            case INNER_END:
+                if (lexer.preNextAndCheckEnd().getType() != TokenType.END)
+                    lexer.error(DiagnosticCode.MISSING_INNER_END);
+                else
+                    lexer.next(); // END
+                return pop();
+            case STATEMENT_LIST:
+                push(lexer.getLine());
+                push(nodeTop);
+                push(STATEMENT_LIST_NEXT);
+                return STATEMENT;
+            case STATEMENT_LIST_NEXT:
+                return statementListNext();
+            case ASSIGNMENT:
+                return assignment();
+            case ASSIGNMENT_END:
+                return assignmentEnd();
+            case IF:
+            case WHILE:
+            case REPEAT:
+                push(lexer.getLine());
+                lexer.next(); // IF WHILE REPEAT
+                if (state == REPEAT) {
+                    push(REPEAT_BODY);
+                    return STATEMENT;
+                }
+                push(state == IF ? IF_CONDITION : WHILE_CONDITION);
+                return BOOLEAN_EXPRESSION;
+            case IF_CONDITION:
+                return ifCondition();
+            case IF_THEN:
+                return ifThen();
+            case IF_ELSE: {
+                int then = pop();
+                int condition = pop();
+                int line = pop();
+                result = arena.add(AstKind.IF_ELSE, 0, TYPE_NONE, line, condition, then, orEmpty(result, line));
+                return pop();
+            }
+            case WHILE_CONDITION:
+                return whileCondition();
+            case WHILE_BODY: {
+                int condition = pop();
+                int line = pop();
+                result = arena.add(AstKind.WHILE, 0, TYPE_NONE, line, condition, orEmpty(result, line));
+                return pop();
+            }
+            case REPEAT_BODY:
+                return repeatBody();
+            case REPEAT_CONDITION: {
+                int body = pop();
+                int line = pop();
+                result = arena.add(AstKind.REPEAT, 0, TYPE_NONE, line, body, orEmpty(result, line));
+                return pop();
+            }
+            case SKIP_BODY_NEXT:
+                pushStatement(result);
+                if (TOKEN_TYPES[frames[frameTop - 2]] == TokenType.THEN
+                        && lexer.preNext().getType() == TokenType.ELSE) {
+                    lexer.next();
+                    push(SKIP_BODY_END);
+                    return STATEMENT;
+                }
+                return skipBodyEnd();
+            case SKIP_BODY_END:
+                pushStatement(result);
+                return skipBodyEnd();
+            case EXPRESSION:
+                return expression();
+            case CLOSE_PARENTHESIS:
+                program.getExpression().closeParenthesis();
+                return pop();
+            case ARITHMETIC_EXPRESSION:
+            case BOOLEAN_EXPRESSION:
+                program.production();
+                push(state == ARITHMETIC_EXPRESSION ? 1 : 0);
+                push(operatorTop);
+                push(nodeTop);
+                push(BINARY_OPERAND);
+                return state == ARITHMETIC_EXPRESSION ? ARITHMETIC_FACTOR : BOOLEAN_FACTOR;
+            case BINARY_OPERAND:
+                return binaryOperand();
+            case ARITHMETIC_FACTOR:
+                program.production();
+                return arithmeticFactor();
+            case NEGATE_END: {
+                int line = pop();
+                if (result != NONE)
+                    result = arena.add(AstKind.NEGATE, 0, SymbolType.INTEGER.ordinal(), line, result);
+                return pop();
+            }
+            case BOOLEAN_FACTOR:
+                program.production();
+                if (lexer.preNextAndCheckEnd().getType() != TokenType.NOT)
+                    return BOOLEAN_VALUE;
+                push(lexer.getLine());
+                lexer.next();
+                push(NOT_FACTOR);
+                return BOOLEAN_FACTOR;
+            case NOT_FACTOR: {
+                int line = pop();
+                if (!isNull(result))
+                    result = arena.add(AstKind.NOT, 0, TYPE_BRANCH, line, result);
+                return pop();
+            }
+            case BOOLEAN_VALUE:
+                return booleanValue();
+            case RELATION_LEFT:
+                return relationLeft();
+            case RELATION_RIGHT:
+                return relationRight();
+            default:
+                throw new IllegalStateException(String.valueOf(state));
+        }
+    }
+
+    private int statement() {
+        Token token = lexer.preNextAndCheckEnd();
+        switch (token.getType()) {
+            case IDENTIFIER:
+                return ASSIGNMENT;
+            case IF:
+                return IF;
+            case WHILE:
+                return WHILE;
+            case REPEAT:
+                return REPEAT;
+            case BEGIN:
+                lexer.next(); // BEGIN
+                push(INNER_END);
+                return STATEMENT_LIST;
+            default:
+                lexer.error(DiagnosticCode.UNEXPECTED_STATEMENT, token);
+                if (!Statement.isBlockEnd(token.getType())) {
+                    lexer.next();
+                    if (!Statement.SYNCHRONIZING.contains(token.getType()))
+                        program.getStatement().synchronize();
+                }
+                result = NONE;
+                return pop();
+        }
+    }
+
+    private int statementListNext() {
+        pushStatement(result);
+        lexer.skipSemicolon();
+        if (!Statement.isBlockEnd(lexer.preNext().getType())) {
+            push(STATEMENT_LIST_NEXT);
+            return STATEMENT;
+        }
+        int base = pop();
+        int line = pop();
+        result = arena.add(AstKind.BLOCK, 0, TYPE_NONE, line, nodes, base, nodeTop);
+        nodeTop = base;
+        return pop();
+    }
+
+    private int repeatBody() {
+        int line = frames[frameTop - 1];
+        int body = orEmpty(result, line);
+        if (!program.getStatement().expect(TokenType.UNTIL, DiagnosticCode.MISSING_UNTIL, false)) {
+            pop();
+            result = arena.add(AstKind.BLOCK, 0, TYPE_NONE, line, body);
+            return pop();
+        }
+        push(body);
+        push(REPEAT_CONDITION);
+        return BOOLEAN_EXPRESSION;
+    }
+
+    private int whileCondition() {
+        int line = pop();
+        int condition = result;
+        if (isNull(condition))
+            return skipBody(condition, TokenType.DO, line);
+        if (!program.getStatement().expect(TokenType.DO, DiagnosticCode.MISSING_DO, true)) {
+            result = arena.add(AstKind.CONDITION, 0, TYPE_NONE, line, condition);
+            return pop();
+        }
+        push(line);
+        push(condition);
+        push(WHILE_BODY);
+        return STATEMENT;
+    }
+
+    private int ifCondition() {
+        int line = pop();
+        int condition = result;
+        if (isNull(condition))
+            return skipBody(condition, TokenType.THEN, line);
+        if (!program.getStatement().expect(TokenType.THEN, DiagnosticCode.MISSING_THEN, true)) {
+            result = arena.add(AstKind.CONDITION, 0, TYPE_NONE, line, condition);
+            return pop();
+        }
+        lexer.preNextAndCheckEnd();
+        push(line);
+        push(condition);
+        push(IF_THEN);
+        return STATEMENT;
+    }
+
+    private int ifThen() {
+        int then = orEmpty(result, frames[frameTop - 2]);
+        if (lexer.preNextAndCheckEnd().getType() == TokenType.ELSE) {
+            lexer.next();
+            push(then);
+            push(IF_ELSE);
+            return STATEMENT;
+        }
+        int condition = pop();
+        int line = pop();
+        result = arena.add(AstKind.IF, 0, TYPE_NONE, line, condition, then);
+        return pop();
+    }
+
+    // the condition is broken: the body is still parsed, as a plain block
+    private int skipBody(int condition, TokenType keyword, int line) {
+        push(line);
+        push(keyword.ordinal());
+        push(nodeTop);
+        pushStatement(condition);
+        program.getStatement().synchronize();
+        if (lexer.preNext().getType() == keyword) {
+            lexer.next();
+            push(SKIP_BODY_NEXT);
+            return STATEMENT;
+        }
+        return skipBodyEnd();
+    }
+
+    private int skipBodyEnd() {
+        int base = pop();
+        pop(); // keyword
+        int line = pop();
+        result = arena.add(AstKind.BLOCK, 0, TYPE_NONE, line, nodes, base, nodeTop);
+        nodeTop = base;
+        return pop();
+    }
+
+    private int assignment() {
+        int line = lexer.getLine();
+        Token variable = lexer.next();
+        Symbol symbol = program.getSymbolTable().get(variable.getId());
+        if (symbol == null) {
+            lexer.error(DiagnosticCode.UNDEFINED_VARIABLE, variable.getPhrase());
+            program.getStatement().synchronize();
+            result = NONE;
+            return pop();
+        }
+        if (lexer.preNextAndCheckEnd().getType() != TokenType.ASSIGNMENT) {
+            lexer.error(DiagnosticCode.MISSING_ASSIGNMENT);
+            program.getStatement().synchronize();
+            result = NONE;
+            return pop();
+        }
+        lexer.next();
+        push(line);
+        push(symbol.getId());
+        push(ASSIGNMENT_END);
+        return EXPRESSION;
+    }
+
+    private int assignmentEnd() {
+        Symbol symbol = program.getSymbolTable().get(pop());
+        int line = pop();
+        int expression = result;
+        int target = symbol.getId();
+        if (!isNull(expression)) {
+            SymbolType type = arena.getSymbolType(expression);
+            // a condition has no value to assign
+            if (type == null) {
+                lexer.error(DiagnosticCode.NOT_RIGHT_VALUE);
+                target = NONE;
+            } else if (type != symbol.getType()) {
+                lexer.error(DiagnosticCode.ASSIGNMENT_TYPE_MISMATCH, type,
+                        symbol.getName(), symbol.getName(), symbol.getType());
+                target = NONE;
+            }
+        }
+        Token next = lexer.preNext();
+        if (!Statement.SYNCHRONIZING.contains(next.getType()) && !Statement.STATEMENT_KEYWORDS.contains(next.getType())
+                && next.getType() != TokenType.IDENTIFIER) {
+            if (!isNull(expression))
+                lexer.error(DiagnosticCode.UNEXPECTED_STATEMENT, next);
+            program.getStatement().synchronize();
+        }
+        lexer.skipSemicolon(); // ;
+        result = arena.add(AstKind.ASSIGN, target, TYPE_NONE, line, orEmpty(expression, line));
+        return pop();
+    }
+
+    private int expression() {
+        Token next = lexer.preNextAndCheckEnd();
+        TokenType type = next.getType();
+        Symbol symbol = program.getExpression().symbol(next);
+        if (type == TokenType.LEFT_PARENTHESIS) {
+            lexer.next();
+            push(CLOSE_PARENTHESIS);
+            return EXPRESSION;
+        } else if ((symbol != null && symbol.getType() == SymbolType.INTEGER)
+                || type == TokenType.C_INTEGER || type == TokenType.MINUS) {
+            return ARITHMETIC_EXPRESSION;
+        } else if ((symbol != null && symbol.getType() == SymbolType.BOOLEAN)
+                || type.isBoolean() || type == TokenType.NOT) {
+            return BOOLEAN_EXPRESSION;
+        }
+        result = NONE;
+        return pop();
+    }
+
+    // see Expression.parseBinary, the operators are reduced at the same points
+    private int binaryOperand() {
+        pushNode(result);
+        boolean arithmetic = frames[frameTop - 3] == 1;
+        int operatorBase = frames[frameTop - 2];
+        OperatorGrammar grammar = arithmetic ? program.getArithmeticExpression() : program.getBooleanExpression();
+        reduce(arithmetic, operatorBase, grammar.getMaxPrecedence());
+        OperatorType operator = grammar.getOperator(lexer.preNextAndCheckEnd().getType());
+        if (operator != null) {
+            reduce(arithmetic, operatorBase, operator.getPrecedence());
+            int line = lexer.getLine();
+            lexer.next();
+            pushOperator(operator.ordinal(), line);
+            push(BINARY_OPERAND);
+            return arithmetic ? ARITHMETIC_FACTOR : BOOLEAN_FACTOR;
+        }
+        reduce(arithmetic, operatorBase, 0);
+        int nodeBase = pop();
+        operatorTop = pop();
+        pop(); // arithmetic
+        result = nodes[nodeBase];
+        nodeTop = nodeBase;
+        return pop();
+    }
+
+    private void reduce(boolean arithmetic, int operatorBase, int precedence) {
+        while (operatorTop > operatorBase && OPERATORS[operators[operatorTop - 2]].getPrecedence() >= precedence) {
+            int line = operators[--operatorTop];
+            OperatorType operator = OPERATORS[operators[--operatorTop]];
+            int right = nodes[--nodeTop];
+            int left = nodes[nodeTop - 1];
+            if (left == NONE) {
+                nodes[nodeTop - 1] = right;
+            } else if (right != NONE) {
+                int type;
+                if (isNull(left))
+                    type = arena.getType(right);
+                else if (isNull(right))
+                    type = arena.getType(left);
+                else if (arithmetic)
+                    type = SymbolType.INTEGER.ordinal();
+                else
+                    type = TYPE_BRANCH;
+                if (arithmetic && !isNull(left) && operator == OperatorType.DIVIDE
+                        && arena.getKind(right) == AstKind.INTEGER && arena.getValue(right) == 0)
+                    lexer.error(DiagnosticCode.DIVIDE_BY_ZERO);
+                nodes[nodeTop - 1] = arena.add(AstKind.BINARY, operator.ordinal(), type, line, left, right);
+            }
+        }
+    }
+
+    private int arithmeticFactor() {
+        Token token = lexer.preNextAndCheckEnd();
+        int line = lexer.getLine();
+        if (token.getType() == TokenType.MINUS) {
+            push(line);
+            lexer.next();
+            push(NEGATE_END);
+            return ARITHMETIC_FACTOR;
+        } else if (token.getType() == TokenType.C_INTEGER) {
+            int value = Integer.parseInt(lexer.next().getPhrase());
+            result = arena.add(AstKind.INTEGER, value, SymbolType.INTEGER.ordinal(), line);
+        } else if (token.getType() == TokenType.IDENTIFIER) {
+            result = parseSymbol(SymbolType.INTEGER, line);
+        } else if (token.getType() == TokenType.LEFT_PARENTHESIS) {
+            lexer.next();
+            push(CLOSE_PARENTHESIS);
+            return ARITHMETIC_EXPRESSION;
+        } else {
+            lexer.error(DiagnosticCode.UNEXPECTED_ARITHMETIC_VALUE);
+            result = NONE;
+        }
+        return pop();
+    }
+
+    private int parseSymbol(SymbolType symbolType, int line) {
+        Token id = lexer.next();
+        Symbol symbol = program.checkSymbol(id);
+        if (symbol == null)
+            return NONE;
+        if (symbol.getType() != symbolType) {
+            lexer.error(DiagnosticCode.TYPE_MISMATCH, symbol.getName(), symbolType.name());
+            return NONE;
+        }
+        return arena.add(AstKind.SYMBOL, symbol.getId(), symbolType.ordinal(), line);
+    }
+
+    private int booleanValue() {
+        Token next = lexer.preNext();
+        int line = lexer.getLine();
+        Symbol symbol = program.getExpression().symbol(next);
+        if (next.getType().isBoolean()) {
+            boolean value = Boolean.parseBoolean(lexer.next().getPhrase());
+            result = arena.add(AstKind.BOOLEAN, value ? 1 : 0, SymbolType.BOOLEAN.ordinal(), line);
+        } else if (symbol != null && symbol.getType() == SymbolType.BOOLEAN) {
+            result = parseSymbol(SymbolType.BOOLEAN, line);
+        } else if (next.getType() == TokenType.C_INTEGER ||
+                (symbol != null && symbol.getType() == SymbolType.INTEGER)) {
+            push(line);
+            push(RELATION_LEFT);
+            return ARITHMETIC_EXPRESSION;
+        } else if (next.getType() == TokenType.LEFT_BRACKET) {
+            lexer.next();
+            push(CLOSE_PARENTHESIS);
+            return EXPRESSION;
+        } else {
+            lexer.error(DiagnosticCode.UNEXPECTED_BOOLEAN_VALUE, next);
+            result = NONE;
+        }
+        return pop();
+    }
+
+    private int relationLeft() {
+        int left = result;
+        if (left == NONE) {
+            pop(); // line
+            lexer.error(DiagnosticCode.MISSING_ARITHMETIC_EXPRESSION_1);
+            return pop();
+        }
+        Token ro = lexer.preNextAndCheckEnd();
+        if (!ro.getType().isRelationalOperators()) {
+            int line = pop();
+            lexer.error(DiagnosticCode.MISSING_RELATIONAL_OPERATOR);
+            result = arena.add(AstKind.RELATION, NONE, TYPE_NONE, line, left, empty(line));
+            return pop();
+        }
+        lexer.next();
+        push(left);
+        push(ro.getType().ordinal());
+        push(RELATION_RIGHT);
+        return ARITHMETIC_EXPRESSION;
+    }
+
+    private int relationRight() {
+        TokenType ro = TOKEN_TYPES[pop()];
+        int left = pop();
+        int line = pop();
+        if (result == NONE) {
+            lexer.error(DiagnosticCode.MISSING_ARITHMETIC_EXPRESSION_2);
+            result = arena.add(AstKind.RELATION, NONE, TYPE_NONE, line, left, empty(line));
+            return pop();
+        }
+        OperatorType operator = OperatorType.fromTokenType(ro);
+        result = arena.add(AstKind.RELATION, operator.ordinal(), TYPE_BRANCH, line, left, result);
+        return pop();
+    }
+
+    // no node, or a node that emits codes but has no value
+    private boolean isNull(int node) {
+        return node == NONE || arena.getType(node) == TYPE_NONE;
+    }
+
+    private int orEmpty(int node, int line) {
+        return node == NONE ? empty(line) : node;
+    }
+
+    private int empty(int line) {
+        return arena.add(AstKind.EMPTY, 0, TYPE_NONE, line);
+    }
+
+    private void push(int value) {
+        if (frameTop == frames.length)
+            frames = Arrays.copyOf(frames, frameTop * 2);
+        frames[frameTop++] = value;
+    }
+
+    private int pop() {
+        return frames[--frameTop];
+    }
+
+    private void pushStatement(int node) {
+        if (node != NONE)
+            pushNode(node);
+    }
+
+    private void pushNode(int node) {
+        if (nodeTop == nodes.length)
+            nodes = Arrays.copyOf(nodes, nodeTop * 2);
+        nodes[nodeTop++] = node;
+    }
+
+    // the operator and the line it is at
+    private void pushOperator(int operator, int line) {
+        if (operatorTop + 2 > operators.length)
+            operators = Arrays.copyOf(operators, operators.length * 2);
+        operators[operatorTop++] = operator;
+        operators[operatorTop++] = line;
+    }
+}
@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.trans.OperatorType;
 import net.colors_wind.compiler.trans.Symbol;
 import net.colors_wind.compiler.trans.SymbolType;
@@ -39,7 +40,7 @@ import net.colors_wind.compiler.node.NodeType;
 
 import java.util.Optional;
 
-public class BooleanExpression {
+public class BooleanExpression implements OperatorGrammar {
     private final Program program;
     private final ListLexer lexer;
 
@@ -48,93 +49,122 @@ public class BooleanExpression {
         this.lexer = program.getLexer();
     }
 
-    private Node andMerge(Node[] nodes, OperatorType operatorType) {
-        BranchNode first = extendToBranch(nodes[0]);
-        BranchNode second = extendToBranch(nodes[1]);
+    @Override
+    public OperatorType getOperator(TokenType type) {
+        return type == TokenType.AND || type == TokenType.OR ? OperatorType.fromTokenType(type) : null;
+    }
+
+    @Override
+    public int getMaxPrecedence() {
+        return OperatorType.OR.getPrecedence();
+    }
+
+    @Override
+    public Node parseOperand() {
+        return parseBooleanFactor();
+    }
+
+    @Override
+    public Node merge(Node left, Node right, OperatorType operatorType) {
+        return operatorType == OperatorType.AND ? andMerge(left, right) : orMerge(left, right);
+    }
+
+    private Node andMerge(Node left, Node right) {
+        BranchNode first = extendToBranch(left);
+        BranchNode second = extendToBranch(right);
         first.setTrueGo(second.getCodePos());
-        second.setFalseGo(first.getFalseGoPos());
+        second.setFalseList(program.getCodes().merge(first.getFalseList(), second.getFalseList()));
         second.setCodePos(first.getCodePos());
         return second;
     }
 
-    private Node orMerge(Node[] nodes, OperatorType operatorType) {
-        BranchNode first = extendToBranch(nodes[0]);
-        BranchNode second = extendToBranch(nodes[1]);
-        second.setTrueGo(first.getTrueGoPos());
+    private Node orMerge(Node left, Node right) {
+        BranchNode first = extendToBranch(left);
+        BranchNode second = extendToBranch(right);
+        second.setTrueList(program.getCodes().merge(first.getTrueList(), second.getTrueList()));
         first.setFalseGo(second.getCodePos());
         second.setCodePos(first.getCodePos());
         return second;
     }
 
     public Optional<Node> parseBooleanExpression() {
-        return program.getExpression().parseBNFLoop(this::parseBooleanTerm, type -> type == TokenType.AND, this::andMerge);
+        return Optional.ofNullable(program.getExpression().parseBinary(this));
     }
 
-    public Optional<Node> parseBooleanTerm() {
-        return program.getExpression().parseBNFLoop(this::parseBooleanFactor, type -> type == TokenType.OR, this::orMerge);
-    }
-
-    public Optional<Node> parseBooleanFactor() {
+    Node parseBooleanFactor() {
+        program.production();
         if (lexer.preNextAndCheckEnd().getType() == TokenType.NOT) {
             lexer.next();
-            parseBooleanFactor().ifPresent(node -> {
-                int trueGo = node.getTrueGo().getCodePos();
-                int falseGo = node.getFalseGo().getCodePos();
-                node.setTrueGo(falseGo);
-                node.setFalseGo(trueGo);
-            });
+            Node node = parseBooleanFactor();
+            if (node == null)
+                return null;
+            // a value has no jumps yet, they are emitted before they are swapped
+            BranchNode branchNode = extendToBranch(node);
+            negate(branchNode);
+            return branchNode;
         }
         return parseBooleanValue();
     }
 
-    private Optional<Node> parseBooleanValue() {
+    void negate(Node node) {
+        int trueList = node.getTrueList();
+        node.setTrueList(node.getFalseList());
+        node.setFalseList(trueList);
+    }
+
+    private Node parseBooleanValue() {
         Token next = lexer.preNext();
-        Optional<Symbol> symbolOptional = program.getExpression().lookup(next);
+        Symbol symbol = program.getExpression().symbol(next);
         if (next.getType().isBoolean()) {
-            return program.getExpression().parseImmediate(SymbolType.BOOLEAN, Boolean::valueOf);
-        } else if (symbolOptional.isPresent() && symbolOptional.get().getType() == SymbolType.BOOLEAN) {
+            return program.getExpression().parseImmediate(SymbolType.BOOLEAN);
+        } else if (symbol != null && symbol.getType() == SymbolType.BOOLEAN) {
             return program.getExpression().parseSymbol(SymbolType.BOOLEAN);
         } else if (next.getType() == TokenType.C_INTEGER ||
-                (symbolOptional.isPresent() && symbolOptional.get().getType() == SymbolType.INTEGER)) {
+                (symbol != null && symbol.getType() == SymbolType.INTEGER)) {
             return parseRationalExpression();
         } else if (next.getType() == TokenType.LEFT_BRACKET) {
-            return program.getExpression().parseBrackets(program.getExpression()::parseExpression);
+            lexer.next();
+            Node node = program.getExpression().expression();
+            program.getExpression().closeParenthesis();
+            return node;
         } else {
-            lexer.error("解析布尔量失败: 意外读取到: `" + next + "`.");
-            return Optional.empty();
+            lexer.error(DiagnosticCode.UNEXPECTED_BOOLEAN_VALUE, next);
+            return null;
         }
     }
 
-    private Optional<Node> parseRationalExpression() {
-        Optional<Node> ae1 = program.getArithmeticExpression().parseArithmeticExpression();
-        if (!ae1.isPresent()) {
-            lexer.error("缺少 `<算术表达式1>`, 请检查关系运算表达式.");
-            return Optional.empty();
+    private Node parseRationalExpression() {
+        ArithmeticExpression arithmeticExpression = program.getArithmeticExpression();
+        Node ae1 = program.getExpression().parseBinary(arithmeticExpression);
+        if (ae1 == null) {
+            lexer.error(DiagnosticCode.MISSING_ARITHMETIC_EXPRESSION_1);
+            return null;
         }
         Token ro = lexer.preNextAndCheckEnd();
         if (!ro.getType().isRelationalOperators()) {
-            lexer.error("缺少 `<关系运算符>`, 请检查关系运算表达式.");
-            return Optional.empty();
+            lexer.error(DiagnosticCode.MISSING_RELATIONAL_OPERATOR);
+            return null;
         }
         lexer.next();
-        Optional<Node> ae2 = program.getArithmeticExpression().parseArithmeticExpression();
-        if (!ae2.isPresent()) {
-            lexer.error("缺少 `<算术表达式2>`, 请检查关系运算表达式.");
-            return Optional.empty();
+        Node ae2 = program.getExpression().parseBinary(arithmeticExpression);
+        if (ae2 == null) {
+            lexer.error(DiagnosticCode.MISSING_ARITHMETIC_EXPRESSION_2);
+            return null;
         }
-        Node rationalNode = new BranchNode(program.nextPos());
-        program.emit(OperatorType.fromTokenType(ro.getType()),
-                ae1.get().getVarOrImmediate(), ae2.get().getVarOrImmediate(), rationalNode.getTrueGo());
-        program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", rationalNode.getFalseGo());
-        return Optional.of(rationalNode);
+        return emitRelation(ae1, OperatorType.fromTokenType(ro.getType()), ae2);
+    }
+
+    Node emitRelation(Node ae1, OperatorType operatorType, Node ae2) {
+        int trueList = program.emitJump(operatorType, ae1.getVarOrImmediate(), ae2.getVarOrImmediate());
+        int falseList = program.emitJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        return new BranchNode(trueList, program.getCodes(), trueList, falseList);
     }
 
     BranchNode extendToBranch(Node node) {
         if (node.getType() == NodeType.BRANCH)
             return (BranchNode) node;
-        BranchNode branchNode = new BranchNode(program.nextPos());
-        program.emit(OperatorType.JUMP_IF_EQUAL, node.getVarOrImmediate(), "TRUE", branchNode.getTrueGo());
-        program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", branchNode.getFalseGo());
-        return branchNode;
+        int trueList = program.emitJump(OperatorType.JUMP_IF_EQUAL, node.getVarOrImmediate(), "TRUE");
+        int falseList = program.emitJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        return new BranchNode(trueList, program.getCodes(), trueList, falseList);
     }
 }
@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.trans.SymbolType;
 import net.colors_wind.compiler.lex.ListLexer;
 import net.colors_wind.compiler.lex.Token;
@@ -54,13 +55,13 @@ public class CharExpression {
             Node node = new ImmediateNode(token.getPhrase(), SymbolType.CHAR);
             return Optional.of(node);
         } else if (token.getType() == TokenType.IDENTIFIER) {
-            Optional<Symbol> symbolOptional = program.lookupAndCheck(token.getPhrase());
+            Optional<Symbol> symbolOptional = program.lookupAndCheck(token);
             return symbolOptional.map(symbol -> {
                 lexer.next();
                 return new SymbolNode(symbol);
             });
         } else {
-            lexer.error("无法解析字符表达式: 未知Token: " + token);
+            lexer.error(DiagnosticCode.UNEXPECTED_CHAR_EXPRESSION, token);
             return Optional.empty();
         }
     }
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileStats.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import java.util.Locale;
+
+/**
+ * Counters and phase times of one or more compilations, see {@link Program#getStats()}. Counting
+ * is always on and costs an increment, phases are only timed when the program is timed. When
+ * emitting directly the codes are generated while parsing, so their time is part of the parse
+ * time and only tree mode reports a codegen time, JSON has null for it if no compilation had
+ * one. The parse time does not include lexing, whose time is estimated from a sample of tokens.
+ */
+public class CompileStats {
+    long compilations;
+    long failures;
+    long lines;
+    long bytes;
+    long tokens;
+    long lexNanos;
+    long productions;
+    long peeks;
+    long parseNanos;
+    long lookups;
+    long temporaries;
+    long quads;
+    long backpatches;
+    long generateNanos;
+    // compilations that generated from a tree with timing on, generateNanos is theirs
+    long generations;
+
+    public CompileStats() {
+    }
+
+    public CompileStats(CompileStats stats) {
+        add(stats);
+    }
+
+    public void add(CompileStats stats) {
+        compilations += stats.compilations;
+        failures += stats.failures;
+        lines += stats.lines;
+        bytes += stats.bytes;
+        tokens += stats.tokens;
+        lexNanos += stats.lexNanos;
+        productions += stats.productions;
+        peeks += stats.peeks;
+        parseNanos += stats.parseNanos;
+        lookups += stats.lookups;
+        temporaries += stats.temporaries;
+        quads += stats.quads;
+        backpatches += stats.backpatches;
+        generateNanos += stats.generateNanos;
+        generations += stats.generations;
+    }
+
+    public void clear() {
+        compilations = 0;
+        failures = 0;
+        lines = 0;
+        bytes = 0;
+        tokens = 0;
+        lexNanos = 0;
+        productions = 0;
+        peeks = 0;
+        parseNanos = 0;
+        lookups = 0;
+        temporaries = 0;
+        quads = 0;
+        backpatches = 0;
+        generateNanos = 0;
+        generations = 0;
+    }
+
+    // counts this compilation as failed, what was done before the failure is kept
+    public void fail() {
+        failures++;
+    }
+
+    // a compilation that failed before anything was done, as one of an empty source
+    public static CompileStats failed() {
+        CompileStats stats = new CompileStats();
+        stats.compilations = 1;
+        stats.failures = 1;
+        return stats;
+    }
+
+    public long getCompilations() {
+        return compilations;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    public long getLexNanos() {
+        return lexNanos;
+    }
+
+    // statements, expressions and factors the parser entered
+    public long getProductions() {
+        return productions;
+    }
+
+    public long getPeeks() {
+        return peeks;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getTemporaries() {
+        return temporaries;
+    }
+
+    public long getQuads() {
+        return quads;
+    }
+
+    // jumps whose target was set by backpatching
+    public long getBackpatches() {
+        return backpatches;
+    }
+
+    public long getGenerateNanos() {
+        return generateNanos;
+    }
+
+    public long getGenerations() {
+        return generations;
+    }
+
+    public double getLexBytesPerSecond() {
+        return lexNanos == 0 ? 0 : bytes * 1e9 / lexNanos;
+    }
+
+    public double getLexTokensPerSecond() {
+        return lexNanos == 0 ? 0 : tokens * 1e9 / lexNanos;
+    }
+
+    // one line of JSON, times in milliseconds
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"compilations\":%d,\"failures\":%d,"
+                        + "\"lex\":{\"lines\":%d,\"bytes\":%d,\"tokens\":%d,\"millis\":%.3f,\"bytesPerSecond\":%.0f,\"tokensPerSecond\":%.0f},"
+                        + "\"parse\":{\"productions\":%d,\"peeks\":%d,\"millis\":%.3f},"
+                        + "\"symbols\":{\"lookups\":%d,\"temporaries\":%d},"
+                        + "\"codegen\":{\"quads\":%d,\"backpatches\":%d,\"millis\":%s}}",
+                compilations, failures,
+                lines, bytes, tokens, lexNanos / 1e6, getLexBytesPerSecond(), getLexTokensPerSecond(),
+                productions, peeks, parseNanos / 1e6,
+                lookups, temporaries,
+                quads, backpatches,
+                generations == 0 ? "null" : String.format(Locale.ROOT, "%.3f", generateNanos / 1e6));
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompilerContext.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import net.colors_wind.compiler.lex.LineSource;
+
+import java.util.List;
+
+/**
+ * A {@link Program} together with its lexer, tables and buffers, reset for every compilation
+ * instead of being created again. A context compiles one input at a time and what the last
+ * compilation produced (codes, diagnostics, tree) is only valid until the next reset, use
+ * {@link #local()} to get one per thread.
+ */
+public class CompilerContext {
+    private static final ThreadLocal<CompilerContext> LOCAL = ThreadLocal.withInitial(CompilerContext::new);
+
+    private final Diagnostics diagnostics;
+    private final Program program;
+    private long compilations;
+
+    public CompilerContext() {
+        this.diagnostics = new Diagnostics();
+        this.program = new Program(diagnostics);
+    }
+
+    public static CompilerContext local() {
+        return LOCAL.get();
+    }
+
+    // the program, ready to parse input
+    public Program reset(LineSource input) {
+        diagnostics.clear();
+        program.reset(input);
+        compilations++;
+        return program;
+    }
+
+    public Program reset(List<String> input) {
+        return reset(LineSource.of(input));
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public long getCompilations() {
+        return compilations;
+    }
+}
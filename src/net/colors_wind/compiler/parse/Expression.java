@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.node.ImmediateNode;
 import net.colors_wind.compiler.node.SymbolNode;
 import net.colors_wind.compiler.trans.OperatorType;
@@ -37,10 +38,8 @@ import net.colors_wind.compiler.lex.Token;
 import net.colors_wind.compiler.lex.TokenType;
 import net.colors_wind.compiler.node.Node;
 
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.function.*;
 
 
 public class Expression {
@@ -52,70 +51,124 @@ public class Expression {
         this.lexer = program.getLexer();
     }
 
+    // nested expressions use the stacks above the ones of the enclosing expression
+    private Node[] operands = new Node[16];
+    private OperatorType[] operators = new OperatorType[16];
+    private int operandTop;
+    private int operatorTop;
+
     public Optional<Node> parseExpression() {
+        return Optional.ofNullable(expression());
+    }
+
+    Node expression() {
         Token next = lexer.preNextAndCheckEnd();
         TokenType type = next.getType();
-        Optional<Symbol> symbolOptional = lookup(next);
+        Symbol symbol = symbol(next);
         if (type == TokenType.LEFT_PARENTHESIS) {
-            return parseBrackets(this::parseExpression);
-        } else if ((symbolOptional.isPresent() && symbolOptional.get().getType() == SymbolType.INTEGER)
+            lexer.next();
+            Node node = expression();
+            closeParenthesis();
+            return node;
+        } else if ((symbol != null && symbol.getType() == SymbolType.INTEGER)
                 || type == TokenType.C_INTEGER || type == TokenType.MINUS) {
-            return program.getArithmeticExpression().parseArithmeticExpression();
-        } else if ((symbolOptional.isPresent() && symbolOptional.get().getType() == SymbolType.BOOLEAN)
+            return parseBinary(program.getArithmeticExpression());
+        } else if ((symbol != null && symbol.getType() == SymbolType.BOOLEAN)
                 || type.isBoolean() || type == TokenType.NOT) {
-            return program.getBooleanExpression().parseBooleanExpression();
+            return parseBinary(program.getBooleanExpression());
         }
-        return Optional.empty();
+        return null;
     }
 
-    Optional<Node> parseBNFLoop(Supplier<Optional<Node>> nodeParser,
-                                Predicate<TokenType> operatorPredicate, BiFunction<Node[], OperatorType, Node> merger) {
-        Queue<Node> queue = new ArrayDeque<>(3);
-        nodeParser.get().ifPresent(queue::offer);
-        while(operatorPredicate.test(lexer.preNextAndCheckEnd().getType())) {
-            Token operator = lexer.next();
-            nodeParser.get().ifPresent(queue::offer);
-            if (queue.size() >= 2) {
-                Node node = merger.apply(new Node[]{queue.poll(), queue.poll()},
-                        OperatorType.fromTokenType(operator.getType()));
-                queue.offer(node);
+    /**
+     * Operator precedence parsing of operand {operator operand}. Operators are reduced at
+     * the same points (and so emit their codes in the same order) as nesting one
+     * operand {operator operand} loop per precedence level: an operator of the highest
+     * precedence right after its right operand, any other before the next operator of
+     * no higher precedence is read. A missing operand leaves the other one as result.
+     */
+    Node parseBinary(OperatorGrammar grammar) {
+        program.production();
+        int operatorBase = operatorTop;
+        int operandBase = operandTop;
+        try {
+            push(grammar.parseOperand());
+            while (true) {
+                reduce(grammar, operatorBase, grammar.getMaxPrecedence());
+                OperatorType operator = grammar.getOperator(lexer.preNextAndCheckEnd().getType());
+                if (operator == null)
+                    break;
+                reduce(grammar, operatorBase, operator.getPrecedence());
+                lexer.next();
+                push(operator);
+                push(grammar.parseOperand());
             }
+            reduce(grammar, operatorBase, 0);
+            return operands[operandBase];
+        } finally {
+            Arrays.fill(operands, operandBase, operandTop, null);
+            operandTop = operandBase;
+            operatorTop = operatorBase;
         }
-        return queue.size() == 1 ? Optional.of(queue.poll()) : Optional.empty();
     }
 
+    private void reduce(OperatorGrammar grammar, int operatorBase, int precedence) {
+        while (operatorTop > operatorBase && operators[operatorTop - 1].getPrecedence() >= precedence) {
+            OperatorType operator = operators[--operatorTop];
+            Node right = operands[--operandTop];
+            Node left = operands[operandTop - 1];
+            if (left == null)
+                operands[operandTop - 1] = right;
+            else if (right != null)
+                operands[operandTop - 1] = grammar.merge(left, right, operator);
+        }
+    }
 
-    Optional<Node> parseImmediate(SymbolType symbolType, Function<String, Object> converter) {
-        Token value = lexer.next();
-        return Optional.of(new ImmediateNode(converter.apply(value.getPhrase()), symbolType));
+    private void push(Node operand) {
+        if (operandTop == operands.length)
+            operands = Arrays.copyOf(operands, operandTop * 2);
+        operands[operandTop++] = operand;
     }
 
-    Optional<Node> parseSymbol(SymbolType symbolType) {
-        Token id = lexer.next();
-        return program.lookupAndCheck(id.getPhrase()).flatMap(symbol -> {
-            if (symbol.getType() != symbolType) {
-                lexer.error("类型不匹配: " + symbol.getName() + " 不是 " + symbolType.name() + " 类型的.");
-                return Optional.empty();
-            }
-            return Optional.of(new SymbolNode(symbol));
-        });
+    private void push(OperatorType operator) {
+        if (operatorTop == operators.length)
+            operators = Arrays.copyOf(operators, operatorTop * 2);
+        operators[operatorTop++] = operator;
     }
 
+    Node parseImmediate(SymbolType symbolType) {
+        String phrase = lexer.next().getPhrase();
+        Object value = symbolType == SymbolType.INTEGER ? (Object) Integer.valueOf(phrase) : Boolean.valueOf(phrase);
+        return new ImmediateNode(value, symbolType);
+    }
 
-    Optional<Node> parseBrackets(Supplier<Optional<Node>> expressParser) {
-        lexer.next();
-        Optional<Node> node = expressParser.get();
+    Node parseSymbol(SymbolType symbolType) {
+        Token id = lexer.next();
+        Symbol symbol = program.checkSymbol(id);
+        if (symbol == null)
+            return null;
+        if (symbol.getType() != symbolType) {
+            lexer.error(DiagnosticCode.TYPE_MISMATCH, symbol.getName(), symbolType.name());
+            return null;
+        }
+        return new SymbolNode(symbol);
+    }
+
+    void closeParenthesis() {
         if (lexer.preNext().getType() == TokenType.RIGHT_PARENTHESIS)
             lexer.next();
         else
-            lexer.error("缺少 `)`.");
-        return node;
+            lexer.error(DiagnosticCode.MISSING_RIGHT_PARENTHESIS);
     }
 
     public Optional<Symbol> lookup(Token token) {
+        return Optional.ofNullable(symbol(token));
+    }
+
+    Symbol symbol(Token token) {
         if (token.getType() == TokenType.IDENTIFIER)
-            return program.getSymbolTable().lookup(token.getPhrase());
+            return program.getSymbolTable().get(token.getId());
         else
-            return Optional.empty();
+            return null;
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: OperatorGrammar.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import net.colors_wind.compiler.lex.TokenType;
+import net.colors_wind.compiler.node.Node;
+import net.colors_wind.compiler.trans.OperatorType;
+
+/**
+ * The binary operators of one kind of expression, parsed by {@link Expression#parseBinary(OperatorGrammar)}.
+ */
+interface OperatorGrammar {
+
+    // the binary operator of this grammar the token stands for, or null
+    OperatorType getOperator(TokenType type);
+
+    // the highest precedence of the operators
+    int getMaxPrecedence();
+
+    // null if no operand could be parsed
+    Node parseOperand();
+
+    Node merge(Node left, Node right, OperatorType operatorType);
+}
@@ -27,59 +27,125 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import net.colors_wind.compiler.node.AstArena;
+import net.colors_wind.compiler.node.AstKind;
 import net.colors_wind.compiler.trans.OperatorType;
 import net.colors_wind.compiler.trans.Symbol;
 import net.colors_wind.compiler.trans.SymbolTable;
-import net.colors_wind.compiler.trans.TACode;
+import net.colors_wind.compiler.trans.TACodeBuffer;
+import net.colors_wind.compiler.trans.TACodeSink;
+import net.colors_wind.compiler.lex.IdentifierPool;
+import net.colors_wind.compiler.lex.LineSource;
 import net.colors_wind.compiler.lex.ListLexer;
 import net.colors_wind.compiler.lex.Token;
 import net.colors_wind.compiler.lex.TokenType;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.Optional;
 
 public class Program {
+    private final IdentifierPool identifiers;
+    private final Diagnostics diagnostics;
     private final ListLexer lexer;
     private final SymbolTable symbolTable;
     private final Statement statement;
     private final Expression expression;
     private final Variable variable;
-    private final List<TACode> codes;
+    private final TACodeBuffer codes;
     private final ArithmeticExpression arithmeticExpression;
     private final BooleanExpression booleanExpression;
+    private final AstArena arena;
+    private final AstParser astParser;
+    private final AstCodeGen astCodeGen;
     private String programName;
+    // statements, expressions and factors entered
+    private long productions;
+    // phases are only timed when set
+    private boolean timed;
+    private long parseNanos;
+    private long generateNanos;
+    private boolean generateTimed;
 
 
 
     public Program(List<String> input) {
-        this.lexer = new ListLexer(input);
-        this.symbolTable = new SymbolTable();
+        this(LineSource.of(input));
+    }
+
+    public Program(LineSource input) {
+        this(input, new Diagnostics());
+    }
+
+    public Program(LineSource input, Diagnostics diagnostics) {
+        this(diagnostics);
+        lexer.reset(input);
+    }
+
+    // has no input until reset, see CompilerContext
+    Program(Diagnostics diagnostics) {
+        this.identifiers = new IdentifierPool();
+        this.diagnostics = diagnostics;
+        this.lexer = new ListLexer(identifiers, diagnostics);
+        this.symbolTable = new SymbolTable(identifiers);
         this.statement = new Statement(this);
         this.expression = new Expression(this);
         this.variable = new Variable(this);
-        this.codes = new ArrayList<>();
+        this.codes = new TACodeBuffer(symbolTable);
         this.arithmeticExpression = new ArithmeticExpression(this);
         this.booleanExpression = new BooleanExpression(this);
+        this.arena = new AstArena();
+        this.astParser = new AstParser(this);
+        this.astCodeGen = new AstCodeGen(this);
+    }
+
+    // starts a new compilation of input, symbols, codes and the tree of the last one are dropped
+    void reset(LineSource input) {
+        lexer.reset(input);
+        identifiers.clear();
+        symbolTable.clear();
+        codes.clear();
+        arena.clear();
+        programName = null;
+        productions = 0;
+        parseNanos = 0;
+        generateNanos = 0;
+        generateTimed = false;
     }
 
     public boolean parse() {
+        long start = timed ? System.nanoTime() : 0;
+        boolean parsed;
+        try {
+            parsed = parseAll();
+        } catch (UnexpectedEndException e) {
+            lexer.error(DiagnosticCode.UNEXPECTED_END);
+            parsed = false;
+        } finally {
+            if (timed)
+                parseNanos += System.nanoTime() - start;
+        }
+        codes.flush();
+        return parsed;
+    }
+
+    private boolean parseAll() {
         parseProgram();
         // variable
-        Variable variable = new Variable(this);
         variable.parse();
         // statement
-        Statement statement = new Statement(this);
         statement.parse();
         // .
-        if (lexer.preNextAndCheckEnd().getType() != TokenType.DOT) {
-            lexer.error("缺少程序结束符 `.` .");
+        if (lexer.preNext().getType() != TokenType.DOT) {
+            lexer.error(DiagnosticCode.MISSING_PROGRAM_END);
             return false;
         }
         lexer.next();
         // EOF
         if (lexer.preNext().getType() != TokenType.EOF) {
-            lexer.error("已读取到程序结束符, 后意外发现Token序列.");
+            lexer.error(DiagnosticCode.TOKENS_AFTER_END);
         }
         lexer.next();
         this.emit(OperatorType.END, "-", "-", "-");
@@ -87,20 +153,79 @@ public class Program {
     }
 
 
+    /**
+     * Parses the program into a tree without emitting codes, {@link #generate(AstArena)} emits them.
+     * The tree is reused by the next compilation of this program.
+     */
+    public AstArena parseTree() {
+        long start = timed ? System.nanoTime() : 0;
+        try {
+            return parseTreeAll();
+        } finally {
+            if (timed)
+                parseNanos += System.nanoTime() - start;
+        }
+    }
+
+    private AstArena parseTreeAll() {
+        arena.clear();
+        int block = AstArena.NONE;
+        int closed = 0;
+        try {
+            parseProgramName();
+            variable.parse();
+            block = astParser.parse(arena);
+            // .
+            if (lexer.preNext().getType() != TokenType.DOT) {
+                lexer.error(DiagnosticCode.MISSING_PROGRAM_END);
+            } else {
+                lexer.next();
+                // EOF
+                if (lexer.preNext().getType() != TokenType.EOF)
+                    lexer.error(DiagnosticCode.TOKENS_AFTER_END);
+                lexer.next();
+                closed = 1;
+            }
+        } catch (UnexpectedEndException e) {
+            lexer.error(DiagnosticCode.UNEXPECTED_END);
+        }
+        if (block == AstArena.NONE)
+            block = arena.add(AstKind.EMPTY, 0, AstArena.TYPE_NONE, lexer.getLine());
+        arena.setRoot(arena.add(AstKind.PROGRAM, closed, AstArena.TYPE_NONE, 1, block));
+        return arena;
+    }
+
+    public void generate(AstArena arena) {
+        long start = timed ? System.nanoTime() : 0;
+        try {
+            astCodeGen.generate(arena);
+        } finally {
+            if (timed) {
+                generateNanos += System.nanoTime() - start;
+                generateTimed = true;
+            }
+        }
+        codes.flush();
+    }
+
     public boolean parseProgram() {
+        parseProgramName();
+        this.emit(OperatorType.PROGRAM, programName, "-", "-");
+        return true;
+    }
+
+    private void parseProgramName() {
         if (lexer.preNextAndCheckEnd().getType() != TokenType.PROGRAM)
-            lexer.error("缺少 program 声明程序名称.");
+            lexer.error(DiagnosticCode.MISSING_PROGRAM);
         else
             lexer.next(); // program
         Token program = lexer.preNextAndCheckEnd();
         if (program.getType() != TokenType.IDENTIFIER)
-            lexer.error("格式不匹配, 请检查 program `<标识符>` .");
+            lexer.error(DiagnosticCode.MISSING_PROGRAM_NAME);
         else
             lexer.next(); // example
         programName = program.getPhrase();
-        this.emit(OperatorType.PROGRAM, programName, "-", "-");
         lexer.skipSemicolon(); // ;
-        return true;
     }
 
     protected ListLexer getLexer() {
@@ -111,6 +236,50 @@ public class Program {
         return programName;
     }
 
+    // where the lexer writes info, nothing is written if not set
+    public void setOutput(PrintStream output) {
+        lexer.setOutput(output);
+    }
+
+    // codes are passed to sink as they become final instead of being kept for printIntermediateCodes, until reset
+    public void setSink(TACodeSink sink) {
+        codes.setSink(sink);
+    }
+
+    // times lexing (sampled), parsing and generating from a tree
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+        lexer.setTimed(timed);
+    }
+
+    void production() {
+        productions++;
+    }
+
+    // what the current compilation did so far
+    public CompileStats getStats() {
+        CompileStats stats = new CompileStats();
+        stats.compilations = 1;
+        stats.lines = lexer.getLineCount();
+        stats.bytes = lexer.getByteCount();
+        stats.tokens = lexer.getConsumedCount();
+        stats.lexNanos = lexer.getLexNanos();
+        stats.productions = productions;
+        stats.peeks = lexer.getPeekCount();
+        stats.parseNanos = Math.max(0, parseNanos - lexer.getLexNanos());
+        stats.lookups = symbolTable.getLookupCount();
+        stats.temporaries = symbolTable.getTmpCount();
+        stats.quads = codes.size();
+        stats.backpatches = codes.getBackpatchCount();
+        stats.generateNanos = generateNanos;
+        stats.generations = generateTimed ? 1 : 0;
+        return stats;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
     public SymbolTable getSymbolTable() {
         return symbolTable;
     }
@@ -127,20 +296,36 @@ public class Program {
         return variable;
     }
 
-    public TACode emit(OperatorType type, Object obj1, Object obj2, Object obj3) {
-        TACode code = new TACode(nextPos(), type, obj1, obj2, obj3);
-        this.codes.add(code);
-        return code;
+    // returns the position of the code
+    public int emit(OperatorType type, Object obj1, Object obj2, Object obj3) {
+        return codes.add(type, obj1, obj2, obj3);
+    }
+
+    // emits a jump whose target is set by backpatch, returns a backpatch list of it
+    public int emitJump(OperatorType type, Object obj1, Object obj2) {
+        return codes.addJump(type, obj1, obj2);
+    }
+
+    public void backpatch(int list, int target) {
+        codes.backpatch(list, target);
+    }
+
+    public TACodeBuffer getCodes() {
+        return codes;
     }
 
     public int nextPos() {
         return codes.size();
     }
 
-    public Optional<Symbol> lookupAndCheck(String name) {
-        Optional<Symbol> symbol = symbolTable.lookup(name);
-        if (!symbol.isPresent())
-            lexer.error("找不到符号: " + name);
+    public Optional<Symbol> lookupAndCheck(Token token) {
+        return Optional.ofNullable(checkSymbol(token));
+    }
+
+    Symbol checkSymbol(Token token) {
+        Symbol symbol = symbolTable.get(token.getId());
+        if (symbol == null)
+            lexer.error(DiagnosticCode.UNDEFINED_SYMBOL, token.getPhrase());
         return symbol;
     }
 
@@ -152,9 +337,8 @@ public class Program {
         return booleanExpression;
     }
 
-    public void printIntermediateCodes() {
-        for(int i=0;i<codes.size();i++)
-            System.out.println(i + ": " + codes.get(i));
+    public void printIntermediateCodes(PrintStream out) {
+        codes.print(out);
     }
 
 }
@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.trans.OperatorType;
 import net.colors_wind.compiler.lex.ListLexer;
 import net.colors_wind.compiler.lex.Token;
@@ -36,9 +37,18 @@ import net.colors_wind.compiler.node.Node;
 import net.colors_wind.compiler.node.NodeType;
 import net.colors_wind.compiler.trans.Symbol;
 
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 
 public class Statement {
+    // tokens a statement can be followed by, parsing resumes at them after an error
+    static final Set<TokenType> SYNCHRONIZING = EnumSet.of(TokenType.SEMICOLON, TokenType.END,
+            TokenType.DO, TokenType.THEN, TokenType.UNTIL, TokenType.ELSE, TokenType.DOT, TokenType.EOF);
+    // keywords starting a statement, they never appear inside one and are safe to resume at
+    static final Set<TokenType> STATEMENT_KEYWORDS = EnumSet.of(TokenType.BEGIN, TokenType.IF,
+            TokenType.WHILE, TokenType.REPEAT);
+
     private final Program program;
     private final ListLexer lexer;
 
@@ -48,19 +58,21 @@ public class Statement {
     }
 
     public boolean parse() {
-        if (lexer.preNextAndCheckEnd().getType() != TokenType.BEGIN) {
-            lexer.error("格式不匹配， 预期: `begin` ... .");
-        }
-        lexer.next();
+        if (lexer.preNextAndCheckEnd().getType() != TokenType.BEGIN)
+            lexer.error(DiagnosticCode.MISSING_BEGIN);
+        else
+            lexer.next();
         parseStatementList();
-        if (lexer.preNextAndCheckEnd().getType() != TokenType.END) {
-            lexer.error("格式不匹配， 预期: ... `end`.");
+        if (lexer.preNext().getType() != TokenType.END) {
+            lexer.error(DiagnosticCode.MISSING_END);
+            return false;
         }
         lexer.next();
         return true;
     }
 
     private boolean parseStatement() {
+        program.production();
         Token token = lexer.preNextAndCheckEnd();
         if (token.getType() == TokenType.IDENTIFIER)
             return parseAssignment();
@@ -74,13 +86,18 @@ public class Statement {
             lexer.next(); // BEGIN
             boolean r = parseStatementList();
             if (lexer.preNextAndCheckEnd().getType() != TokenType.END)
-                lexer.error("缺少 `END`.");
+                lexer.error(DiagnosticCode.MISSING_INNER_END);
             else
                 lexer.next(); // END
             return r;
         } else {
-            lexer.error("无法解析语句: 意外读取到: `" + token + "`.");
-            lexer.next();
+            lexer.error(DiagnosticCode.UNEXPECTED_STATEMENT, token);
+            if (!isBlockEnd(token.getType())) {
+                // a misplaced do, then... is dropped alone, anything else with the rest of the statement
+                lexer.next();
+                if (!SYNCHRONIZING.contains(token.getType()))
+                    synchronize();
+            }
             return false;
         }
     }
@@ -88,23 +105,54 @@ public class Statement {
     private boolean parseStatementList() {
         parseStatement();
         lexer.skipSemicolon();
-        while(lexer.preNextAndCheckEnd().getType() != TokenType.END) {
+        while(!isBlockEnd(lexer.preNext().getType())) {
             parseStatement();
             lexer.skipSemicolon();
         }
         return true;
     }
 
+    static boolean isBlockEnd(TokenType type) {
+        return type == TokenType.END || type == TokenType.DOT || type == TokenType.EOF;
+    }
+
+    // panic mode: skips the rest of a broken statement
+    void synchronize() {
+        TokenType type = lexer.preNext().getType();
+        while (!SYNCHRONIZING.contains(type) && !STATEMENT_KEYWORDS.contains(type) && !isAssignmentStart(type)) {
+            lexer.next();
+            type = lexer.preNext().getType();
+        }
+    }
+
+    private boolean isAssignmentStart(TokenType type) {
+        return type == TokenType.IDENTIFIER && lexer.peek(1).getType() == TokenType.ASSIGNMENT;
+    }
+
+    // after a missing keyword: goes on if a statement follows (and may), else skips to the keyword
+    boolean expect(TokenType keyword, DiagnosticCode code, boolean statementFollows) {
+        TokenType type = lexer.preNextAndCheckEnd().getType();
+        if (type == keyword) {
+            lexer.next();
+            return true;
+        }
+        lexer.error(code);
+        if (statementFollows && (type == TokenType.IDENTIFIER || STATEMENT_KEYWORDS.contains(type)))
+            return true;
+        synchronize();
+        if (lexer.preNext().getType() != keyword)
+            return false;
+        lexer.next();
+        return true;
+    }
+
 
     private boolean parseRepeat() {
         lexer.next(); // REPEAT
         int pos = program.nextPos();
         parseStatement();
-        if (lexer.preNextAndCheckEnd().getType() != TokenType.UNTIL) {
-            lexer.error("缺少 `until`.");
+        if (!expect(TokenType.UNTIL, DiagnosticCode.MISSING_UNTIL, false))
             return false;
-        }
-        lexer.next(); // UNIT
         program.getBooleanExpression().parseBooleanExpression().map(program.getBooleanExpression()::extendToBranch)
             .ifPresent(branchNode -> {
                 branchNode.setTrueGo(program.nextPos());
@@ -115,18 +163,16 @@ public class Statement {
 
     private boolean parseWhile() {
         lexer.next(); // WHILE
-        program.getBooleanExpression().parseBooleanExpression().map(program.getBooleanExpression()::extendToBranch)
-                .ifPresent(node -> {
-                    if (lexer.preNextAndCheckEnd().getType() != TokenType.DO) {
-                        lexer.error("缺少 `DO`");
-                        return;
-                    }
-                    lexer.next(); // DO
-                    node.setTrueGo(program.nextPos());
-                    parseStatement();
-                    program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", node.getCodePos());
-                    node.setFalseGo(program.nextPos());
-                });
+        Optional<Node> nodeOptional = program.getBooleanExpression().parseBooleanExpression();
+        if (!nodeOptional.isPresent())
+            return skipBody(TokenType.DO);
+        BranchNode node = program.getBooleanExpression().extendToBranch(nodeOptional.get());
+        if (!expect(TokenType.DO, DiagnosticCode.MISSING_DO, true))
+            return false;
+        node.setTrueGo(program.nextPos());
+        parseStatement();
+        program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", node.getCodePos());
+        node.setFalseGo(program.nextPos());
         return true;
     }
 
@@ -134,55 +180,76 @@ public class Statement {
         lexer.next();
         Optional<Node> nodeOptional = program.getBooleanExpression().parseBooleanExpression();
         if (!nodeOptional.isPresent())
-            return false;
+            return skipBody(TokenType.THEN);
         BranchNode branchNode = program.getBooleanExpression().extendToBranch(nodeOptional.get());
-        if (lexer.preNextAndCheckEnd().getType() == TokenType.THEN)
-            lexer.next();
-        else
-            lexer.error("缺少 `then`");
+        if (!expect(TokenType.THEN, DiagnosticCode.MISSING_THEN, true))
+            return false;
         branchNode.setTrueGo(program.nextPos());
-        CodePos end = new CodePos();
-        lexer.preNextAndCheckEnd();
         parseStatement();
+        if (lexer.preNext().getType() != TokenType.ELSE) {
+            branchNode.setFalseGo(program.nextPos());
+            lexer.preNextAndCheckEnd();
+            return true;
+        }
+        lexer.next();
+        int jump = program.emitJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
         branchNode.setFalseGo(program.nextPos());
-        if (lexer.preNextAndCheckEnd().getType() == TokenType.ELSE) {
+        parseStatement();
+        program.backpatch(jump, program.nextPos());
+        return true;
+    }
+
+    // the condition is broken: skips it, the body is still checked
+    private boolean skipBody(TokenType keyword) {
+        synchronize();
+        if (lexer.preNext().getType() == keyword) {
             lexer.next();
-            CodePos pos = new CodePos();
-            program.emit(OperatorType.JUMP_NO_CONDITION, "-", "-", pos);
-            branchNode.setFalseGo(program.nextPos());
             parseStatement();
-            pos.setPos(program.nextPos());
+            if (keyword == TokenType.THEN && lexer.preNext().getType() == TokenType.ELSE) {
+                lexer.next();
+                parseStatement();
+            }
         }
-        end.setPos(program.nextPos());
-        return true;
+        return false;
     }
 
     private boolean parseAssignment() {
         Token variable = lexer.next();
-        Optional<Symbol> symbolOptional = program.getSymbolTable().lookup(variable.getPhrase());
-        if (!symbolOptional.isPresent()) {
-            lexer.error("找不到变量: `" + variable.getPhrase() + "`, 请检查赋值表达式.");
+        Symbol symbol = program.getSymbolTable().get(variable.getId());
+        if (symbol == null) {
+            lexer.error(DiagnosticCode.UNDEFINED_VARIABLE, variable.getPhrase());
+            synchronize();
             return false;
         }
         if (lexer.preNextAndCheckEnd().getType() != TokenType.ASSIGNMENT) {
-            lexer.error("格式不匹配, 缺少 `:=`, 请检查赋值表达式.");
+            lexer.error(DiagnosticCode.MISSING_ASSIGNMENT);
+            synchronize();
             return false;
         }
         lexer.next();
-        program.getExpression().parseExpression().ifPresent(node -> {
-            if (node.getType() == NodeType.VARIABLE && node.getType() == NodeType.IMMEDIATE) {
-                lexer.error("赋值号右边不是一个右值表达式.");
+        Optional<Node> nodeOptional = program.getExpression().parseExpression();
+        nodeOptional.ifPresent(node -> {
+            // a condition has no value to assign
+            if (node.getType() == NodeType.BRANCH) {
+                lexer.error(DiagnosticCode.NOT_RIGHT_VALUE);
                 return;
             }
-            Symbol symbol = symbolOptional.get();
             if (node.getSymbolType() != symbol.getType()) {
-                lexer.error("类型不匹配: 尝试将一个 " + node.getSymbolType() + " 的右值赋值给 "
-                        + symbol.getName() + ", 但 " + symbol.getName() + " 是 " + symbol.getType() + " 类型的.");
+                lexer.error(DiagnosticCode.ASSIGNMENT_TYPE_MISMATCH, node.getSymbolType(),
+                        symbol.getName(), symbol.getName(), symbol.getType());
                 return;
 
             }
-            program.emit(OperatorType.ASSIGNMENT, node.getVarOrImmediate(), "-", symbolOptional.get().getName());
+            program.emit(OperatorType.ASSIGNMENT, node.getVarOrImmediate(), "-", symbol);
         });
+        // the expression stopped early, what is left of the statement is reported once
+        Token next = lexer.preNext();
+        if (!SYNCHRONIZING.contains(next.getType()) && !STATEMENT_KEYWORDS.contains(next.getType())
+                && next.getType() != TokenType.IDENTIFIER) {
+            if (nodeOptional.isPresent())
+                lexer.error(DiagnosticCode.UNEXPECTED_STATEMENT, next);
+            synchronize();
+        }
         lexer.skipSemicolon(); // ;
         return true;
     }
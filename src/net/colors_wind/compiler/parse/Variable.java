@@ -27,6 +27,7 @@
 
 package net.colors_wind.compiler.parse;
 
+import net.colors_wind.compiler.diagnostic.DiagnosticCode;
 import net.colors_wind.compiler.lex.ListLexer;
 import net.colors_wind.compiler.lex.Token;
 import net.colors_wind.compiler.lex.TokenType;
@@ -60,13 +61,13 @@ public class Variable {
         List<Symbol> symbols = parseVariableList(); // A, B, ...
         // :
         if (lexer.preNextAndCheckEnd().getType() != TokenType.COLON)
-            lexer.error("缺少`:`, 请检查 <类型> var <标识符列表> `:` <类型>;.");
+            lexer.error(DiagnosticCode.MISSING_COLON);
         else
             lexer.next(); // :
         // DataType
         Token dataType = lexer.preNextAndCheckEnd();
         if (!dataType.getType().isDataType()) {
-            lexer.error("格式不匹配, 缺少 `<类型>`, 请检查变量声明.");
+            lexer.error(DiagnosticCode.MISSING_DATA_TYPE);
         } else
             lexer.next(); // integer
         lexer.skipSemicolon(); // ;
@@ -75,15 +76,15 @@ public class Variable {
 
     public Optional<Symbol> parseSingleVariable() {
         if (lexer.preNextAndCheckEnd().getType() != TokenType.IDENTIFIER) {
-            lexer.error("类型不匹配, 请检查 var `<标识符>`.");
+            lexer.error(DiagnosticCode.MISSING_VARIABLE_NAME);
             return Optional.empty();
         }
         Token id = lexer.next();
-        if (symbolTable.lookup(id.getPhrase()).isPresent()) {
-            lexer.error("变量重定义: " + id.getPhrase());
+        if (symbolTable.lookup(id.getId()).isPresent()) {
+            lexer.error(DiagnosticCode.VARIABLE_REDEFINED, id.getPhrase());
             return Optional.empty();
         } else {
-            Symbol symbol = symbolTable.enter(id.getPhrase());
+            Symbol symbol = symbolTable.enter(id.getId());
             return Optional.of(symbol);
         }
     }
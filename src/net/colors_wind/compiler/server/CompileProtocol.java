@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileProtocol.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.server;
+
+import net.colors_wind.compiler.cache.CompileResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Frames exchanged by {@link CompileServer} and {@link CompileClient} over one connection,
+ * any number of requests may be sent one after another. All ints are big-endian.
+ * <pre>
+ * request:  int flags, int length, source (UTF-8)
+ * response: a {@link CompileResult}, see {@link CompileResult#write}
+ * </pre>
+ */
+public final class CompileProtocol {
+    public static final int DEFAULT_PORT = 7878;
+    // larger frames are refused
+    public static final int MAX_FRAME = 64 << 20;
+    // the codes of a source are a few times longer than it, larger texts of a response are refused
+    public static final int MAX_RESPONSE_TEXT = 1 << 30;
+    // a connection sending nothing for this long is closed, so that it does not keep a worker
+    public static final int DEFAULT_IDLE_TIMEOUT = 30_000;
+
+    public static final int FLAG_AST = 1;
+
+    private CompileProtocol() {
+    }
+
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME)
+            throw new IOException("帧长度不合法: " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeFrame(DataOutputStream out, byte[] bytes, int length) throws IOException {
+        out.writeInt(length);
+        out.write(bytes, 0, length);
+    }
+}
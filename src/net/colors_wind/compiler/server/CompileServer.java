@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileServer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.server;
+
+import net.colors_wind.compiler.cache.CompileCache;
+import net.colors_wind.compiler.cache.CompileResult;
+import net.colors_wind.compiler.parse.CompilerContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles sources sent over localhost TCP, see {@link CompileProtocol}. The process stays up, so
+ * the lexer and parser are loaded and compiled by the JIT once. Every connection is served by a
+ * worker thread compiling through its {@link CompilerContext}, until the client closes it or sends
+ * nothing for the idle timeout.
+ */
+public class CompileServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final CompileCache cache;
+    private final AtomicLong requests = new AtomicLong();
+    private volatile int idleTimeout = CompileProtocol.DEFAULT_IDLE_TIMEOUT;
+
+    public CompileServer(int port, int threads) throws IOException {
+        this(port, threads, null);
+    }
+
+    // results are looked up in and stored to cache unless it is null
+    public CompileServer(int port, int threads, CompileCache cache) throws IOException {
+        this.cache = cache;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "compile-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // milliseconds a connection may wait for the next request, 0 waits forever
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    // accepts connections until closed
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                workers.execute(() -> handle(socket));
+            }
+        } catch (SocketException e) {
+            if (!serverSocket.isClosed())
+                throw e;
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(idleTimeout);
+            while (true) {
+                int flags;
+                try {
+                    flags = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                ByteBuffer source = ByteBuffer.wrap(CompileProtocol.readFrame(in));
+                boolean ast = (flags & CompileProtocol.FLAG_AST) != 0;
+                CompileResult result = cache == null ? CompileResult.compile(source, ast) : cache.compile(source, ast);
+                requests.incrementAndGet();
+                result.write(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away, idled or sent a broken frame, only its connection is dropped
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+}
@@ -40,25 +40,37 @@ public enum OperatorType {
     JUMP_IF_EQUAL("j="),
     JUMP_IF_NOT_EQUAL("j<>"),
     JUMP_NO_CONDITION("j"),
-    PLUS("+"),
-    MINUS("-"),
-    MULTIPLY("*"),
-    DIVIDE("/"),
-    OR("or"),
-    AND("and"),
+    PLUS("+", 1),
+    MINUS("-", 1),
+    MULTIPLY("*", 2),
+    DIVIDE("/", 2),
+    // the Sample grammar makes or bind tighter than and
+    OR("or", 2),
+    AND("and", 1),
     NOT("not"),
     END("sys");
 
     private final String name;
+    private final int precedence;
 
     OperatorType(String name) {
+        this(name, 0);
+    }
+
+    OperatorType(String name, int precedence) {
         this.name = name;
+        this.precedence = precedence;
     }
 
     public String getName() {
         return name;
     }
 
+    // binding strength as a binary operator, 0 if it is not one
+    public int getPrecedence() {
+        return precedence;
+    }
+
     public static OperatorType fromTokenType(TokenType type) {
         switch(type) {
             case PLUS:
@@ -29,13 +29,19 @@ package net.colors_wind.compiler.trans;
 
 public class Symbol {
     private SymbolType type;
+    private final int id;
     private final String name;
 
 
-    public Symbol(String name) {
+    public Symbol(int id, String name) {
+        this.id = id;
         this.name = name;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public SymbolType getType() {
         return type;
     }
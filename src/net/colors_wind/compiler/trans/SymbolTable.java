@@ -27,36 +27,106 @@
 
 package net.colors_wind.compiler.trans;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import net.colors_wind.compiler.lex.IdentifierPool;
+
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Optional;
 
 public class SymbolTable {
-    private final Map<String, Symbol> table = new LinkedHashMap<>();
+    private final IdentifierPool identifiers;
+    // indexed by identifier id
+    private Symbol[] symbols = new Symbol[64];
+    // ids in the order they were entered
+    private int[] order = new int[64];
+    private int size;
     private int tmpIndex = 0;
+    private long lookups;
     public SymbolTable() {
+        this(new IdentifierPool());
+    }
 
+    public SymbolTable(IdentifierPool identifiers) {
+        this.identifiers = identifiers;
+    }
+
+    public Symbol get(int id) {
+        lookups++;
+        return id >= 0 && id < symbols.length ? symbols[id] : null;
+    }
+
+    public Optional<Symbol> lookup(int id) {
+        return Optional.ofNullable(get(id));
     }
 
     public Optional<Symbol> lookup(String name) {
-        return Optional.ofNullable(table.get(name));
+        return lookup(identifiers.find(name));
     }
 
-    public Symbol enter(String name) {
-        Symbol symbol = new Symbol(name);
-        table.put(name, symbol);
+    public Symbol enter(int id) {
+        if (id >= symbols.length)
+            symbols = Arrays.copyOf(symbols, Math.max(symbols.length * 2, id + 1));
+        if (symbols[id] == null) {
+            if (size == order.length)
+                order = Arrays.copyOf(order, size * 2);
+            order[size++] = id;
+        }
+        Symbol symbol = new Symbol(id, identifiers.getName(id));
+        symbols[id] = symbol;
         return symbol;
     }
 
+    public Symbol enter(String name) {
+        return enter(identifiers.intern(name));
+    }
+
     public Symbol newTmp() {
         return enter("T" + ++tmpIndex);
     }
 
     public boolean pop(String name) {
-        return table.remove(name) != null;
+        Symbol symbol = get(identifiers.find(name));
+        if (symbol == null)
+            return false;
+        symbols[symbol.getId()] = null;
+        for (int i = 0; i < size; i++) {
+            if (order[i] == symbol.getId()) {
+                System.arraycopy(order, i + 1, order, i, --size - i);
+                break;
+            }
+        }
+        return true;
+    }
+
+    public String getName(int id) {
+        return identifiers.getName(id);
+    }
+
+    // forgets every symbol, the tables are kept for the next compilation
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            symbols[order[i]] = null;
+        size = 0;
+        tmpIndex = 0;
+        lookups = 0;
+    }
+
+    public long getLookupCount() {
+        return lookups;
+    }
+
+    // temporaries made by newTmp since the last clear
+    public int getTmpCount() {
+        return tmpIndex;
     }
 
-    public void printSymbols() {
-        System.out.println(table.toString());
+    public void printSymbols(PrintStream out) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(identifiers.getName(order[i])).append('=').append(symbols[order[i]]);
+        }
+        out.println(sb.append('}'));
     }
 }
@@ -27,6 +27,9 @@
 
 package net.colors_wind.compiler.trans;
 
+/**
+ * A code with its operands as objects, a copy made by {@link TACodeBuffer#getCode(int)} on request.
+ */
 public class TACode {
     private final int id;
     private final OperatorType type;
@@ -44,7 +47,12 @@ public class TACode {
 
     @Override
     public String toString() {
-        return "(" + type.getName() + ", " + obj1.toString() + ", " + obj2.toString() + ", " + obj3.toString() + ")";
+        return "(" + type.getName() + ", " + operand(obj1) + ", " + operand(obj2) + ", " + operand(obj3) + ")";
+    }
+
+    // variables are kept as symbols and only turned into names when printed
+    private static String operand(Object obj) {
+        return obj instanceof Symbol ? ((Symbol) obj).getName() : obj.toString();
     }
 
     public OperatorType getType() {
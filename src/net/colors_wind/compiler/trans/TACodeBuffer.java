@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: TACodeBuffer.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.trans;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores codes as parallel int arrays, the operator ordinal and three tagged operands. The top
+ * bits of an operand tell what the rest is: nothing ("-"), a symbol id, an int kept inline (a
+ * jump target or a small constant), an index into the constant pool, or a link to the next jump
+ * of a backpatch list. {@link TACode} is only created on request.
+ * <p>
+ * A backpatch list is the position of its first jump, or {@link #EMPTY}. The jumps of a list are
+ * chained through their target operands until {@link #backpatch(int, int)} writes the target,
+ * a jump never backpatched prints 0 as its target.
+ * <p>
+ * With a {@link TACodeSink} set, every code is passed to it as soon as it and all codes before it
+ * are final, that is no jump up to it waits for a backpatch, and is then dropped. Positions stay
+ * absolute, the arrays only hold the codes from the oldest one not passed on, so straight-line
+ * code is not kept however long the program is.
+ */
+public class TACodeBuffer {
+    private static final OperatorType[] OPERATORS = OperatorType.values();
+    private static final int TAG_SHIFT = 29;
+    private static final int PAYLOAD = (1 << TAG_SHIFT) - 1;
+
+    public static final int NONE = 0;
+    public static final int SYMBOL = 1;
+    public static final int INTEGER = 2;
+    public static final int CONSTANT = 3;
+    public static final int LINK = 4;
+
+    public static final int EMPTY = -1;
+
+    private final SymbolTable symbolTable;
+    // codes added, the arrays hold the codes from position start on
+    private int size;
+    private int start;
+    // codes passed to the sink
+    private int flushed;
+    private TACodeSink sink;
+    private int[] operators;
+    private int[] firsts;
+    private int[] seconds;
+    private int[] thirds;
+
+    // strings, booleans and ints that do not fit inline, each kept once
+    private Object[] constants = new Object[16];
+    private int constantCount;
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private long backpatched;
+
+    public TACodeBuffer(SymbolTable symbolTable) {
+        this(symbolTable, 256);
+    }
+
+    public TACodeBuffer(SymbolTable symbolTable, int capacity) {
+        this.symbolTable = symbolTable;
+        this.operators = new int[capacity];
+        this.firsts = new int[capacity];
+        this.seconds = new int[capacity];
+        this.thirds = new int[capacity];
+    }
+
+    // returns the position of the code
+    public int add(OperatorType type, Object obj1, Object obj2, Object obj3) {
+        int pos = put(type, obj1, obj2, obj3);
+        if (flushed == pos)
+            flushFinal();
+        return pos;
+    }
+
+    private int put(OperatorType type, Object obj1, Object obj2, Object obj3) {
+        if (size - start == operators.length) {
+            compact();
+            if (size - start == operators.length)
+                grow();
+        }
+        int i = size - start;
+        operators[i] = type.ordinal();
+        firsts[i] = encode(obj1);
+        seconds[i] = encode(obj2);
+        thirds[i] = encode(obj3);
+        return size++;
+    }
+
+    private int encode(Object obj) {
+        if ("-".equals(obj))
+            return NONE << TAG_SHIFT;
+        if (obj instanceof Symbol)
+            return tagged(SYMBOL, ((Symbol) obj).getId());
+        if (obj instanceof Integer && (Integer) obj >= 0 && (Integer) obj <= PAYLOAD)
+            return INTEGER << TAG_SHIFT | (Integer) obj;
+        return tagged(CONSTANT, constant(obj));
+    }
+
+    private int encode(int value) {
+        return value >= 0 && value <= PAYLOAD ? INTEGER << TAG_SHIFT | value : tagged(CONSTANT, constant(value));
+    }
+
+    // a payload that does not fit would change the tag, it is never cut off
+    private static int tagged(int tag, int payload) {
+        if (payload < 0 || payload > PAYLOAD)
+            throw new IllegalArgumentException("操作数超出范围: " + payload);
+        return tag << TAG_SHIFT | payload;
+    }
+
+    // adds a jump whose target is not known yet, returns a backpatch list of it
+    public int addJump(OperatorType type, Object obj1, Object obj2) {
+        int jump = put(type, obj1, obj2, "-");
+        thirds[jump - start] = LINK << TAG_SHIFT;
+        return jump;
+    }
+
+    // returns a backpatch list of the jumps of both lists
+    public int merge(int list, int other) {
+        if (list == EMPTY)
+            return other;
+        if (other == EMPTY)
+            return list;
+        int last = other;
+        while (getPayload(thirds[last - start]) != 0)
+            last = getPayload(thirds[last - start]) - 1;
+        thirds[last - start] = tagged(LINK, list + 1);
+        return other;
+    }
+
+    // sets the target of every jump of list, the list must not be used afterwards
+    public void backpatch(int list, int target) {
+        int operand = encode(target);
+        int first = list;
+        while (list != EMPTY) {
+            int next = getPayload(thirds[list - start]) - 1;
+            thirds[list - start] = operand;
+            backpatched++;
+            first = Math.min(first, list);
+            list = next;
+        }
+        if (flushed == first)
+            flushFinal();
+    }
+
+    /**
+     * Passes every code to sink once it is final and drops it, instead of keeping it for
+     * {@link #print(PrintStream)}. {@link #flush()} passes on the rest, {@link #clear()} removes
+     * the sink.
+     */
+    public void setSink(TACodeSink sink) {
+        this.sink = sink;
+        flushFinal();
+    }
+
+    // passes the codes up to the first one waiting for a backpatch to the sink
+    private void flushFinal() {
+        if (sink == null)
+            return;
+        while (flushed < size && getTag(thirds[flushed - start]) != LINK)
+            sink.accept(this, flushed++);
+        if (flushed - start >= operators.length >> 1)
+            compact();
+    }
+
+    // passes all codes left to the sink, a jump never backpatched has 0 as its target
+    public void flush() {
+        if (sink == null)
+            return;
+        while (flushed < size)
+            sink.accept(this, flushed++);
+        compact();
+    }
+
+    // drops the codes passed to the sink
+    private void compact() {
+        int length = size - flushed;
+        int from = flushed - start;
+        if (from == 0)
+            return;
+        System.arraycopy(operators, from, operators, 0, length);
+        System.arraycopy(firsts, from, firsts, 0, length);
+        System.arraycopy(seconds, from, seconds, 0, length);
+        System.arraycopy(thirds, from, thirds, 0, length);
+        start = flushed;
+    }
+
+    private int constant(Object obj) {
+        Integer index = constantIndex.get(obj);
+        if (index != null)
+            return index;
+        if (constantCount == constants.length)
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        constants[constantCount] = obj;
+        constantIndex.put(obj, constantCount);
+        return constantCount++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, operators.length * 2);
+        operators = Arrays.copyOf(operators, capacity);
+        firsts = Arrays.copyOf(firsts, capacity);
+        seconds = Arrays.copyOf(seconds, capacity);
+        thirds = Arrays.copyOf(thirds, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+        start = 0;
+        flushed = 0;
+        sink = null;
+        Arrays.fill(constants, 0, constantCount, null);
+        constantCount = 0;
+        constantIndex.clear();
+        backpatched = 0;
+    }
+
+    // codes added, including those passed to the sink
+    public int size() {
+        return size;
+    }
+
+    // the first code still held, codes before it were passed to the sink
+    public int getStart() {
+        return start;
+    }
+
+    public OperatorType getType(int i) {
+        return OPERATORS[operators[i - start]];
+    }
+
+    // operand 0, 1 or 2 as stored, see getTag and getPayload
+    public int getOperand(int i, int operand) {
+        int j = i - start;
+        return operand == 0 ? firsts[j] : operand == 1 ? seconds[j] : thirds[j];
+    }
+
+    public static int getTag(int operand) {
+        return operand >>> TAG_SHIFT;
+    }
+
+    public static int getPayload(int operand) {
+        return operand & PAYLOAD;
+    }
+
+    // jumps whose target was set by backpatch
+    public long getBackpatchCount() {
+        return backpatched;
+    }
+
+    public TACode getCode(int i) {
+        int j = i - start;
+        return new TACode(i, getType(i), decode(firsts[j]), decode(seconds[j]), decode(thirds[j]));
+    }
+
+    private Object decode(int operand) {
+        int payload = getPayload(operand);
+        switch (getTag(operand)) {
+            case NONE:
+                return "-";
+            case SYMBOL:
+                Symbol symbol = symbolTable.get(payload);
+                return symbol != null ? symbol : symbolTable.getName(payload);
+            case INTEGER:
+                return payload;
+            case CONSTANT:
+                return constants[payload];
+            default:
+                return 0;
+        }
+    }
+
+    // one code per line, as TACode prints it, codes passed to the sink are not printed
+    public void print(PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = flushed; i < size; i++) {
+            sb.setLength(0);
+            out.println(append(sb, i));
+        }
+    }
+
+    // appends code i as print prints it, without the line separator
+    public StringBuilder append(StringBuilder sb, int i) {
+        int j = i - start;
+        sb.append(i).append(": (").append(getType(i).getName());
+        appendOperand(sb.append(", "), firsts[j]);
+        appendOperand(sb.append(", "), seconds[j]);
+        appendOperand(sb.append(", "), thirds[j]);
+        return sb.append(')');
+    }
+
+    private void appendOperand(StringBuilder sb, int operand) {
+        int payload = getPayload(operand);
+        switch (getTag(operand)) {
+            case NONE:
+                sb.append('-');
+                break;
+            case SYMBOL:
+                sb.append(symbolTable.getName(payload));
+                break;
+            case INTEGER:
+                sb.append(payload);
+                break;
+            case CONSTANT:
+                sb.append(constants[payload]);
+                break;
+            default:
+                sb.append('0');
+                break;
+        }
+    }
+}
@@ -27,9 +27,10 @@
 
 package net.colors_wind.compiler.ui;
 
-import net.colors_wind.compiler.lex.Lexer;
-import net.colors_wind.compiler.lex.Token;
-import net.colors_wind.compiler.lex.TokenType;
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import net.colors_wind.compiler.lex.IncrementalLexer;
+import net.colors_wind.compiler.lex.LineSource;
+import net.colors_wind.compiler.parse.CompilerContext;
 import net.colors_wind.compiler.parse.Program;
 
 import javax.swing.*;
@@ -38,7 +39,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 
-import static java.lang.System.*;
 
 public class MainUI {
     public JPanel topPanel;
@@ -50,28 +50,31 @@ public class MainUI {
     private JButton pasteButton;
     private JButton copyButton;
 
+    private final IncrementalLexer lexer = new IncrementalLexer();
+    private final CompilerContext context = new CompilerContext();
     private final Object outputLock = new Object();
     private List<String> outputBuffer = new ArrayList<>();
+    // shown in the output list and echoed to the console
+    private final PrintInfoStream info = new PrintInfoStream(System.out);
+    private final PrintErrStream error = new PrintErrStream(System.err);
 
     public MainUI() {
         lexButton.addActionListener(e -> {
-            Lexer lexer = new Lexer();
             StringTokenizer str = new StringTokenizer(inputArea.getText(), "\n");
+            List<String> input = new ArrayList<>();
+            while (str.hasMoreTokens()) input.add(str.nextToken());
             try {
-                for (int i = 0; str.hasMoreTokens(); i++) {
-                    lexer.input("Line" + (i + 1), str.nextToken());
-                    while (lexer.hasNext()) {
-                        Token token = lexer.preNext();
-                        if (token.getType() != TokenType.EOF)
-                            out.print(token + " ");
-
-                        lexer.next();
-                    }
-                    out.println();
+                List<IncrementalLexer.LexedLine> lines = lexer.lex(input);
+                Diagnostics diagnostics = new Diagnostics();
+                for (int i = 0; i < lines.size(); i++) {
+                    IncrementalLexer.LexedLine line = lines.get(i);
+                    line.reportTo(diagnostics, i + 1);
+                    printDiagnostics(diagnostics);
+                    info.println(line.getText());
                 }
             } catch (Exception exception) {
-                exception.printStackTrace(((PrintInfoStream) err).out);
-                err.println(exception.getMessage());
+                exception.printStackTrace(error.out);
+                error.println(exception.getMessage());
             }
             updateList();
         });
@@ -80,12 +83,16 @@ public class MainUI {
             List<String> input = new ArrayList<>();
             while (str.hasMoreTokens()) input.add(str.nextToken());
             try {
-                Program program = new Program(input);
-                program.parse();
-                program.printIntermediateCodes();
+                Program program = context.reset(LineSource.of(input));
+                try {
+                    program.parse();
+                } finally {
+                    printDiagnostics(program.getDiagnostics());
+                }
+                program.printIntermediateCodes(info);
             } catch (Exception exception) {
-                exception.printStackTrace(((PrintInfoStream) err).out);
-                err.println(exception.getMessage());
+                exception.printStackTrace(error.out);
+                error.println(exception.getMessage());
             }
             updateList();
         });
@@ -115,6 +122,11 @@ public class MainUI {
 
     }
 
+    private void printDiagnostics(Diagnostics diagnostics) {
+        diagnostics.printTo(error);
+        diagnostics.clear();
+    }
+
     private void updateList() {
         DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
         List<String> buffer;
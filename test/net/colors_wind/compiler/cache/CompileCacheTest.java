@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileCacheTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompileCacheTest {
+    private static final List<String> SOURCES = Arrays.asList(
+            "program p; var a : integer; begin a := 1 end.",
+            "program p; var a, b : integer; f : bool; begin a := 0; f := true;\n"
+                    + "while a < 10 do begin if f and a <> 3 then b := a * 2 else b := b - 1; a := a + 1 end;\n"
+                    + "repeat a := a - 1 until not [f or f) and a < 3 end.",
+            // diagnostics, and a source that is not compiled at all
+            "program p; var a : integer; begin a := b + 1; c := ; end.",
+            "");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void hitMatchesMiss() throws IOException {
+        CompileCache cache = new CompileCache(folder.getRoot().toPath(), CompileCache.DEFAULT_MAX_BYTES);
+        int compiled = 0;
+        for (String text : SOURCES) {
+            for (boolean ast : new boolean[]{false, true}) {
+                ByteBuffer source = CompileResultTest.utf8(text);
+                CompileResult expected = CompileResult.compile(source.duplicate(), ast);
+                assertResult(expected, cache.compile(source, ast));
+                assertEquals(++compiled, cache.getMisses());
+                assertResult(expected, cache.compile(source, ast));
+                assertEquals(compiled, cache.getHits());
+                assertEquals(0, source.position());
+            }
+        }
+        assertTrue(CompileResult.compile(CompileResultTest.utf8(SOURCES.get(1)), false).getCodes() > 10);
+
+        // another process sharing the directory
+        CompileCache other = new CompileCache(folder.getRoot().toPath(), CompileCache.DEFAULT_MAX_BYTES);
+        assertEquals(cache.getSize(), other.getSize());
+        for (String text : SOURCES)
+            assertResult(CompileResult.compile(CompileResultTest.utf8(text), true), other.compile(CompileResultTest.utf8(text), true));
+        assertEquals(SOURCES.size(), other.getHits());
+        assertEquals(0, other.getMisses());
+    }
+
+    @Test
+    public void keyChangesWithVersionAndOptions() throws IOException {
+        ByteBuffer source = CompileResultTest.utf8(SOURCES.get(0));
+        String key = CompileCache.key(source, false);
+        assertEquals(key, CompileCache.key(CompileCache.COMPILER_VERSION, source, false));
+        assertEquals(key, CompileCache.key(source.duplicate(), false));
+        assertNotEquals(key, CompileCache.key(source, true));
+        assertNotEquals(key, CompileCache.key(CompileResultTest.utf8(SOURCES.get(0) + " "), false));
+        String old = CompileCache.key("sample-compiler/3", source, false);
+        assertNotEquals(key, old);
+
+        // what an older compiler stored is never returned
+        CompileCache cache = new CompileCache(folder.getRoot().toPath(), CompileCache.DEFAULT_MAX_BYTES);
+        CompileResult stale = new CompileResult(CompileResult.STATUS_OK, 1, "stale\n", "");
+        assertTrue(cache.put(old, stale));
+        assertResult(CompileResult.compile(source.duplicate(), false), cache.compile(source, false));
+        assertEquals(1, cache.getMisses());
+        assertResult(stale, cache.get(old));
+    }
+
+    @Test
+    public void brokenEntryIsCompiledAgain() throws IOException {
+        CompileCache cache = new CompileCache(folder.getRoot().toPath(), CompileCache.DEFAULT_MAX_BYTES);
+        ByteBuffer source = CompileResultTest.utf8(SOURCES.get(1));
+        CompileResult expected = cache.compile(source, false);
+        List<Path> entries = entries();
+        assertEquals(1, entries.size());
+        byte[] bytes = Files.readAllBytes(entries.get(0));
+        Files.write(entries.get(0), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertResult(expected, cache.compile(source, false));
+        assertEquals(2, cache.getMisses());
+        assertResult(expected, cache.compile(source, false));
+        assertEquals(1, cache.getHits());
+
+        Files.write(entries.get(0), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertNull(cache.get(CompileCache.key(source, false)));
+        assertFalse(Files.exists(entries.get(0)));
+    }
+
+    @Test
+    public void entriesOverTheLimitAreEvicted() throws IOException {
+        CompileCache cache = new CompileCache(folder.getRoot().toPath(), 4096);
+        for (int i = 0; i < 100; i++)
+            cache.compile(CompileResultTest.utf8("program p; var a : integer; begin a := " + i + " end."), false);
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getSize() <= 4096);
+        assertEquals(cache.getSize(), entries().stream().mapToLong(path -> path.toFile().length()).sum());
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> walk = Files.walk(folder.getRoot().toPath())) {
+            return walk.filter(path -> path.toString().endsWith(".tac")).collect(Collectors.toList());
+        }
+    }
+
+    private static void assertResult(CompileResult expected, CompileResult actual) {
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getCodes(), actual.getCodes());
+        assertEquals(expected.getCodesText(), actual.getCodesText());
+        assertEquals(expected.getDiagnostics(), actual.getDiagnostics());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileResultTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.cache;
+
+import net.colors_wind.compiler.metrics.CompilerMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompileResultTest {
+    private static final String SMALL = "program p; var a : integer; begin a := 1 end.";
+
+    private final CompilerMetrics metrics = CompilerMetrics.getInstance();
+
+    @Before
+    public void enableMetrics() {
+        metrics.reset();
+        metrics.setEnabled(true);
+    }
+
+    @After
+    public void disableMetrics() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    public void tooDeepForDirectEmissionFails() {
+        ByteBuffer source = nested(200000);
+        CompileResult result = CompileResult.compile(source.duplicate(), false);
+        assertEquals(CompileResult.STATUS_FAILED, result.getStatus());
+        assertTrue(result.getDiagnostics(), result.getDiagnostics().contains("嵌套过深"));
+        assertEquals(1, metrics.getCompilations());
+        assertEquals(1, metrics.getFailures());
+
+        // the context of the thread is still usable, the tree parser takes any depth
+        assertTrue(CompileResult.compile(utf8(SMALL), false).isOk());
+        CompileResult tree = CompileResult.compile(source.duplicate(), true);
+        assertTrue(tree.getDiagnostics(), tree.isOk());
+        assertEquals(3, tree.getCodes());
+        assertEquals(3, metrics.getCompilations());
+        assertEquals(1, metrics.getFailures());
+    }
+
+    @Test
+    public void emptySourceFails() {
+        CompileResult result = CompileResult.compile(ByteBuffer.allocate(0), false);
+        assertEquals(CompileResult.STATUS_FAILED, result.getStatus());
+        assertEquals(1, metrics.getFailures());
+    }
+
+    private static ByteBuffer nested(int depth) {
+        StringBuilder sb = new StringBuilder("program p;\nvar a : integer;\nbegin\na := ");
+        for (int i = 0; i < depth; i++)
+            sb.append('(');
+        sb.append('1');
+        for (int i = 0; i < depth; i++)
+            sb.append(')');
+        return utf8(sb.append("\nend.\n").toString());
+    }
+
+    static ByteBuffer utf8(String source) {
+        return ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ProgramGeneratorTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.generator;
+
+import net.colors_wind.compiler.cache.CompileResult;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProgramGeneratorTest {
+
+    @Test
+    public void generatesTheStatementsAskedFor() throws IOException {
+        for (long seed = 0; seed < 20; seed++) {
+            for (int depth : new int[]{0, 1, 3, 8, 40}) {
+                for (long statements : new long[]{0, 1, 2, 3, 4, 10, 1000}) {
+                    ProgramGenerator generator = new ProgramGenerator(seed);
+                    generator.setDepth(depth);
+                    generator.setStatements(statements);
+                    String program = generate(generator);
+                    assertEquals(program, Math.max(1, statements), generator.getGenerated());
+                    assertCompiles(program);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedSameProgram() throws IOException {
+        ProgramGenerator generator = new ProgramGenerator(7);
+        generator.setStatements(20000);
+        String program = generate(generator);
+        assertEquals(20000, generator.getGenerated());
+        assertEquals(program, generate(generator));
+        ProgramGenerator again = new ProgramGenerator(7);
+        again.setStatements(20000);
+        assertEquals(program, generate(again));
+        assertCompiles(program);
+    }
+
+    @Test
+    public void stopsAtTheSizeLimit() throws IOException {
+        ProgramGenerator generator = new ProgramGenerator(3);
+        generator.setStatements(Long.MAX_VALUE);
+        generator.setMaxBytes(64 << 10);
+        StringWriter out = new StringWriter();
+        long bytes = generator.generate(out);
+        assertEquals(out.toString().length(), bytes);
+        assertTrue(bytes >= 64 << 10 && bytes < 80 << 10);
+        assertCompiles(out.toString());
+    }
+
+    private static String generate(ProgramGenerator generator) throws IOException {
+        StringWriter out = new StringWriter();
+        generator.generate(out);
+        return out.toString();
+    }
+
+    private static void assertCompiles(String program) {
+        CompileResult result = CompileResult.compile(ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8)), true);
+        assertTrue(result.getDiagnostics(), result.isOk());
+        assertEquals(program, "", result.getDiagnostics());
+    }
+}
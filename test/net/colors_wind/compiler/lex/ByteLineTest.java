@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ByteLineTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteLineTest {
+
+    @Test
+    public void columnsMatchTheDecodedLine() {
+        byte[] bytes = "a := 1; {注释 😀 é} b := 中文 + 2".getBytes(StandardCharsets.UTF_8);
+        ByteLine line = line(bytes);
+        for (int index = 0; index <= bytes.length; index++) {
+            if (index < bytes.length && (bytes[index] & 0xC0) == 0x80)
+                continue;
+            String prefix = new String(bytes, 0, index, StandardCharsets.UTF_8);
+            assertEquals(prefix, prefix.length(), line.column(index));
+        }
+    }
+
+    @Test
+    public void columnsInAnyOrderMatchAFreshLine() {
+        // malformed and truncated sequences as well
+        byte[] bytes = "x 中 é 😀 ? y".getBytes(StandardCharsets.UTF_8);
+        bytes[bytes.length - 3] = (byte) 0xE4;
+        byte[] longer = new byte[bytes.length + 2];
+        System.arraycopy(bytes, 0, longer, 0, bytes.length);
+        longer[bytes.length] = (byte) 0x80;
+        longer[bytes.length + 1] = (byte) 0xF0;
+        ByteLine line = line(longer);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(longer.length + 4);
+            assertEquals("index " + index, line(longer).column(index), line.column(index));
+        }
+    }
+
+    @Test
+    public void resetStartsOver() {
+        byte[] bytes = "中文 a\n中 b\n".getBytes(StandardCharsets.UTF_8);
+        ByteLine line = new ByteLine(ByteBuffer.wrap(bytes));
+        line.reset(0, 8, false);
+        assertEquals(3, line.column(7));
+        line.reset(9, 5, false);
+        assertEquals(1, line.column(3));
+        assertEquals(2, line.column(4));
+    }
+
+    private static ByteLine line(byte[] bytes) {
+        return new ByteLine(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: IncrementalLexerTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalLexerTest {
+
+    @Test
+    public void editsMatchFullLex() {
+        List<String> lines = LexerSamples.noise(2, 400);
+        lines.addAll(LexerSamples.TRICKY);
+        IncrementalLexer lexer = new IncrementalLexer();
+        assertLexed(lines, lexer.lex(lines));
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            Set<String> before = new HashSet<>(lines);
+            edit(lines, random);
+            List<IncrementalLexer.LexedLine> lexed = lexer.lex(lines);
+            assertLexed(lines, lexed);
+            assertEquals(describe(new IncrementalLexer().lex(lines)), describe(lexed));
+            assertEquals(hits(before, lines), lexer.getHits());
+        }
+    }
+
+    @Test
+    public void rebuildKeepsOutput() {
+        Lexer inner = Lexer.create();
+        IncrementalLexer lexer = new IncrementalLexer(inner);
+        List<String> lines = new ArrayList<>(LexerSamples.TRICKY);
+        int size = 0;
+        int rebuilds = 0;
+        for (int round = 0; round < 12; round++) {
+            // a thousand identifiers that were never seen, the ones of the last round are removed
+            lines.subList(LexerSamples.TRICKY.size(), lines.size()).clear();
+            for (int i = 0; i < 100; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = 0; j < 10; j++)
+                    sb.append('v').append(round * 1000 + i * 10 + j).append(" := 1; ");
+                lines.add(sb.toString());
+            }
+            Set<String> before = new HashSet<>(lines.subList(0, LexerSamples.TRICKY.size()));
+            List<IncrementalLexer.LexedLine> lexed = lexer.lex(lines);
+            assertLexed(lines, lexed);
+            // the pool only shrinks when it was dropped
+            if (inner.getIdentifierPool().size() < size) {
+                assertTrue(size > 4096);
+                rebuilds++;
+            }
+            size = inner.getIdentifierPool().size();
+            // everything is lexed again after a rebuild
+            assertTrue(lexer.getHits() == hits(before, lines) || lexer.getHits() == hits(new HashSet<>(), lines));
+        }
+        assertTrue(rebuilds > 0);
+        lexer.clear();
+        assertEquals(0, inner.getIdentifierPool().size());
+        assertLexed(lines, lexer.lex(lines));
+        assertEquals(0, lexer.getHits());
+    }
+
+    // changes, inserts, removes, duplicates or moves a line
+    private static void edit(List<String> lines, Random random) {
+        int at = random.nextInt(lines.size());
+        switch (random.nextInt(5)) {
+            case 0:
+                lines.set(at, LexerSamples.noise(random.nextLong(), 1).get(0));
+                break;
+            case 1:
+                lines.add(at, LexerSamples.noise(random.nextLong(), 1).get(0));
+                break;
+            case 2:
+                if (lines.size() > 1)
+                    lines.remove(at);
+                break;
+            case 3:
+                lines.add(random.nextInt(lines.size() + 1), lines.get(at));
+                break;
+            default:
+                lines.add(random.nextInt(lines.size()), lines.remove(at));
+        }
+    }
+
+    // lines that were in the text before or already appeared in it
+    private static int hits(Set<String> before, List<String> lines) {
+        Set<String> seen = new HashSet<>(before);
+        int hits = 0;
+        for (String line : lines) {
+            if (!seen.add(line))
+                hits++;
+        }
+        return hits;
+    }
+
+    // compares with the hand written lexer run line by line, identifiers of one lex share their ids
+    private static void assertLexed(List<String> lines, List<IncrementalLexer.LexedLine> lexed) {
+        Diagnostics expected = new Diagnostics();
+        Lexer reference = LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expected);
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            reference.input(i + 1, lines.get(i));
+            StringBuilder text = new StringBuilder();
+            while (reference.hasNext()) {
+                Token token = reference.next();
+                if (token.getType() != TokenType.EOF)
+                    text.append(token).append(' ');
+            }
+            tokens.append(i + 1).append(' ').append(text).append('\n');
+        }
+        Diagnostics actual = new Diagnostics();
+        Map<String, Integer> ids = new HashMap<>();
+        Map<Integer, String> phrases = new HashMap<>();
+        for (int i = 0; i < lexed.size(); i++) {
+            lexed.get(i).reportTo(actual, i + 1);
+            for (Token token : lexed.get(i).getTokens()) {
+                if (token.getType() != TokenType.IDENTIFIER)
+                    continue;
+                assertEquals(token.getId(), (int) ids.computeIfAbsent(token.getPhrase(), p -> token.getId()));
+                assertEquals(token.getPhrase(), phrases.computeIfAbsent(token.getId(), id -> token.getPhrase()));
+            }
+        }
+        assertEquals(tokens.toString(), describe(lexed));
+        assertEquals(LexerSamples.describe(expected), LexerSamples.describe(actual));
+    }
+
+    private static String describe(List<IncrementalLexer.LexedLine> lexed) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lexed.size(); i++) {
+            StringBuilder text = new StringBuilder();
+            for (Token token : lexed.get(i).getTokens())
+                text.append(token).append(' ');
+            assertEquals(text.toString(), lexed.get(i).getText());
+            sb.append(i + 1).append(' ').append(text).append('\n');
+        }
+        return sb.toString();
+    }
+}
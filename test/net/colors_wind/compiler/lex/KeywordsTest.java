@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: KeywordsTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeywordsTest {
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    @Test
+    public void classifiesAsTheReservedWordMap() {
+        List<String> words = new ArrayList<>();
+        for (TokenType type : TokenType.values()) {
+            String name = type.getName();
+            words.add(name);
+            words.add(name.toUpperCase());
+            words.add(name + "x");
+            words.add(name + "1");
+            for (int i = 0; i < name.length(); i++)
+                words.add(name.substring(0, i));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            // mostly short lower case words, which run deep into the trie
+            String alphabet = random.nextBoolean() ? "abdefgilnoprstuvwy" : LETTERS;
+            for (int j = 0; j < length; j++)
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            words.add(sb.toString());
+        }
+        for (String word : words) {
+            // what the lexer classifies, a letter and then letters or digits
+            if (!word.matches("[A-Za-z][A-Za-z0-9]*"))
+                continue;
+            String input = "  " + word + ";";
+            TokenType expected = TokenType.getReserved(word).orElse(TokenType.IDENTIFIER);
+            assertEquals(word, expected, Keywords.classify(input, 2, 2 + word.length()));
+        }
+    }
+}
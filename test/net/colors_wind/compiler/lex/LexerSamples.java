@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: LexerSamples.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sources and reference lexing for the tests comparing lexers: the hand written {@link Lexer}
+ * run line by line is what every other lexer has to give.
+ */
+final class LexerSamples {
+    // every token, blanks, comments, strings and characters Sample does not have
+    static final List<String> TRICKY = Arrays.asList(
+            "program p1; var a, b2 : integer; f : bool;",
+            "begin a := 12 + b2 * (3 - 4) / 5 end.",
+            "if a <> b then a := 1 else if a <= b then b := 2; while a >= 0 do a := a - 1",
+            "repeat f := true or false and not f until a < b; x[1..10] = y > z, c : d",
+            "",
+            "\t  \t",
+            "/* a comment */ a /* another */ := 1",
+            "a := 1 /* not closed",
+            "s := 'a string' ; t := '中文 😀' ; u := 'not closed",
+            "a@b # c $ d ~ e \\ f ` g ! h ? i % j ^ k & l | m { n } o \" p",
+            "中文 := 1; 标识符 😀 é ü",
+            "99999999999999999999 0 007 1a a1 A1 BEGIN Begin begin1 _x",
+            "a:=b:c.d..e...f<g<=h<>i>j>=k=l",
+            "'' '''' ':=' '/*'",
+            "end.");
+
+    private static final String[] PIECES = {"begin", "end", "if", "then", "x1", "y", "42", "0", "'str'",
+            "'中文'", ":=", "<>", "<=", ">=", "..", ".", ":", ";", "(", ")", "[", "]", "+", "-", "*", "/",
+            "=", "<", ">", ",", "/* c */", "/* 未完", "'open", "@", "#", "$", "中", "😀", "é", "~", "\t", " "};
+
+    private LexerSamples() {
+    }
+
+    // random lines of tokens and characters Sample does not have, blanks between them or not
+    static List<String> noise(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int pieces = random.nextInt(12);
+            for (int j = 0; j < pieces; j++) {
+                sb.append(PIECES[random.nextInt(PIECES.length)]);
+                if (random.nextBoolean())
+                    sb.append(' ');
+            }
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+
+    static ByteBuffer utf8(List<String> lines) {
+        return ByteBuffer.wrap((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // lexes the lines one by one with tokenize and adds EOF after the last, as a ParallelLexer chunk does
+    static TokenBuffer tokenize(Lexer lexer, LineSource source) {
+        TokenBuffer buffer = new TokenBuffer();
+        int line = 0;
+        while (source.hasNextLine()) {
+            lexer.input(++line, source.nextLine());
+            lexer.tokenize(buffer);
+        }
+        buffer.add(TokenType.EOF, line, lexer.getColumn(), "", 0, 0);
+        return buffer;
+    }
+
+    // lexes the lines one by one with next, one token per line of the result with the column before it
+    static String next(Lexer lexer, LineSource source) {
+        StringBuilder sb = new StringBuilder();
+        int line = 0;
+        while (source.hasNextLine()) {
+            lexer.input(++line, source.nextLine());
+            while (lexer.hasNext()) {
+                int column = lexer.getColumn();
+                Token token = lexer.next();
+                sb.append(line).append(':').append(column).append(' ').append(token).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    // one token per line: line, column, type and phrase
+    static String describe(TokenBuffer buffer) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < buffer.size(); i++) {
+            sb.append(buffer.getLine(i)).append(':').append(buffer.getColumn(i)).append(' ')
+                    .append(buffer.getToken(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static String describe(Diagnostics diagnostics) {
+        return diagnostics.getDiagnostics().toString() + " +" + diagnostics.getDropped();
+    }
+
+    static Lexer lexer(Lexer.Engine engine, Diagnostics diagnostics) {
+        Lexer lexer = Lexer.create(engine);
+        lexer.setDiagnostics(diagnostics);
+        return lexer;
+    }
+}
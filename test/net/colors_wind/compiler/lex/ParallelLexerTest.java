@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: ParallelLexerTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelLexerTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    // about 20 chunks of lines and 6 of bytes, bad characters on most lines
+    private static final List<String> LINES = LexerSamples.noise(1, 20000);
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void linesMatchSequentialLexing() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Diagnostics expected = new Diagnostics();
+            String tokens = LexerSamples.describe(LexerSamples.tokenize(
+                    LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expected), LineSource.of(LINES)));
+            Diagnostics actual = new Diagnostics();
+            assertEquals(tokens, LexerSamples.describe(new ParallelLexer(POOL, engine).tokenize(LINES, actual)));
+            assertEquals(LexerSamples.describe(expected), LexerSamples.describe(actual));
+        }
+    }
+
+    @Test
+    public void bytesMatchSequentialLexing() {
+        ByteBuffer lf = LexerSamples.utf8(LINES);
+        ByteBuffer crlf = ByteBuffer.wrap((String.join("\r\n", LINES) + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (ByteBuffer bytes : new ByteBuffer[]{lf, crlf}) {
+            assertTrue(bytes.remaining() > 4 << 16);
+            for (Lexer.Engine engine : Lexer.Engine.values()) {
+                Diagnostics expected = new Diagnostics();
+                String tokens = LexerSamples.describe(LexerSamples.tokenize(
+                        LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expected), new MappedLineSource(bytes.duplicate())));
+                Diagnostics actual = new Diagnostics();
+                assertEquals(tokens, LexerSamples.describe(new ParallelLexer(POOL, engine).tokenize(bytes.duplicate(), actual)));
+                assertEquals(LexerSamples.describe(expected), LexerSamples.describe(actual));
+            }
+        }
+    }
+
+    @Test
+    public void smallSourceIsOneChunk() {
+        Diagnostics expected = new Diagnostics();
+        String tokens = LexerSamples.describe(LexerSamples.tokenize(
+                LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expected), LineSource.of(LexerSamples.TRICKY)));
+        Diagnostics actual = new Diagnostics();
+        assertEquals(tokens, LexerSamples.describe(new ParallelLexer(POOL, Lexer.Engine.TABLE_DRIVEN)
+                .tokenize(LexerSamples.utf8(LexerSamples.TRICKY), actual)));
+        assertEquals(LexerSamples.describe(expected), LexerSamples.describe(actual));
+    }
+
+    @Test
+    public void listLexerMatchesSequentialLexing() {
+        Diagnostics expected = new Diagnostics();
+        String tokens = LexerSamples.describe(LexerSamples.tokenize(
+                LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expected), LineSource.of(LINES)));
+        Diagnostics actual = new Diagnostics();
+        ListLexer lexer = new ListLexer(LineSource.of(LINES), new IdentifierPool(), actual);
+        // the first token goes through the lookahead ring, tokenize gives the rest
+        lexer.peek(2);
+        int line = lexer.getLine();
+        Token first = lexer.next();
+        int end = tokens.indexOf('\n') + 1;
+        assertTrue(tokens.substring(0, end), tokens.startsWith(line + ":") && tokens.substring(0, end).endsWith(first + "\n"));
+        assertEquals(tokens.substring(end), LexerSamples.describe(lexer.tokenize()));
+        assertEquals(LexerSamples.describe(expected), LexerSamples.describe(actual));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: TableLexerTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.lex;
+
+import net.colors_wind.compiler.diagnostic.Diagnostics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TableLexerTest {
+
+    @Test
+    public void tokenizeMatchesTheHandWrittenLexer() {
+        for (List<String> lines : sources()) {
+            assertSame(lines, true, false);
+            assertSame(lines, true, true);
+        }
+    }
+
+    @Test
+    public void nextMatchesTheHandWrittenLexer() {
+        for (List<String> lines : sources()) {
+            assertSame(lines, false, false);
+            assertSame(lines, false, true);
+        }
+    }
+
+    @Test
+    public void createsTheEngineAskedFor() {
+        assertTrue(Lexer.create(Lexer.Engine.TABLE_DRIVEN) instanceof TableLexer);
+        assertEquals(Lexer.class, Lexer.create(Lexer.Engine.HAND_WRITTEN).getClass());
+    }
+
+    private static List<List<String>> sources() {
+        List<List<String>> sources = new ArrayList<>();
+        sources.add(LexerSamples.TRICKY);
+        for (int seed = 0; seed < 20; seed++)
+            sources.add(LexerSamples.noise(seed, 200));
+        return sources;
+    }
+
+    // lines as strings or as UTF-8 bytes, the bytes are only decoded where needed
+    private static void assertSame(List<String> lines, boolean tokenize, boolean bytes) {
+        Diagnostics expectedDiagnostics = new Diagnostics();
+        Diagnostics actualDiagnostics = new Diagnostics();
+        Lexer expected = LexerSamples.lexer(Lexer.Engine.HAND_WRITTEN, expectedDiagnostics);
+        Lexer actual = LexerSamples.lexer(Lexer.Engine.TABLE_DRIVEN, actualDiagnostics);
+        assertEquals(lex(expected, lines, tokenize, bytes), lex(actual, lines, tokenize, bytes));
+        assertTrue(expectedDiagnostics.hasErrors());
+        assertEquals(LexerSamples.describe(expectedDiagnostics), LexerSamples.describe(actualDiagnostics));
+    }
+
+    private static String lex(Lexer lexer, List<String> lines, boolean tokenize, boolean bytes) {
+        LineSource source = bytes ? new MappedLineSource(LexerSamples.utf8(lines)) : LineSource.of(lines);
+        return tokenize ? LexerSamples.describe(LexerSamples.tokenize(lexer, source)) : LexerSamples.next(lexer, source);
+    }
+}
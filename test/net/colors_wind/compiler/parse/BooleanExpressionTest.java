@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: BooleanExpressionTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BooleanExpressionTest {
+
+    @Test
+    public void notSwapsTheJumpsOfARelation() {
+        assertCodes(new String[]{"if not a < b then a := 3 else b := 4"},
+                "0: (program, n, -, -)",
+                "1: (j<, a, b, 5)",
+                "2: (j, -, -, 3)",
+                "3: (:=, 3, -, a)",
+                "4: (j, -, -, 6)",
+                "5: (:=, 4, -, b)",
+                "6: (sys, -, -, -)");
+    }
+
+    @Test
+    public void notTurnsAValueIntoAJump() {
+        assertCodes(new String[]{"while not f do f := true"},
+                "0: (program, n, -, -)",
+                "1: (j=, f, TRUE, 5)",
+                "2: (j, -, -, 3)",
+                "3: (:=, true, -, f)",
+                "4: (j, -, -, 1)",
+                "5: (sys, -, -, -)");
+    }
+
+    @Test
+    public void notOfAGroupAndTwice() {
+        assertCodes(new String[]{"if not [f and g) or not not g then g := false else f := true"},
+                "0: (program, n, -, -)",
+                "1: (j=, f, TRUE, 3)",
+                "2: (j, -, -, 7)",
+                "3: (j=, g, TRUE, 5)",
+                "4: (j, -, -, 7)",
+                "5: (j=, g, TRUE, 7)",
+                "6: (j, -, -, 9)",
+                "7: (:=, false, -, g)",
+                "8: (j, -, -, 10)",
+                "9: (:=, true, -, f)",
+                "10: (sys, -, -, -)");
+    }
+
+    @Test
+    public void notInRepeat() {
+        assertCodes(new String[]{"repeat a := a + 1 until not a < 10"},
+                "0: (program, n, -, -)",
+                "1: (+, a, 1, T1)",
+                "2: (:=, T1, -, a)",
+                "3: (j<, a, 10, 1)",
+                "4: (j, -, -, 5)",
+                "5: (sys, -, -, -)");
+    }
+
+    // compiles the statements with direct emission and from the tree, both give the codes
+    private static void assertCodes(String[] statements, String... codes) {
+        String expected = String.join(System.lineSeparator(), codes) + System.lineSeparator();
+        assertEquals(expected, compile(statements, false));
+        assertEquals(expected, compile(statements, true));
+    }
+
+    private static String compile(String[] statements, boolean ast) {
+        String[] lines = new String[statements.length + 4];
+        lines[0] = "program n;";
+        lines[1] = "var a, b : integer; f, g : bool;";
+        lines[2] = "begin";
+        System.arraycopy(statements, 0, lines, 3, statements.length);
+        lines[lines.length - 1] = "end.";
+        Program program = new Program(Arrays.asList(lines));
+        if (ast)
+            program.generate(program.parseTree());
+        else
+            program.parse();
+        assertFalse(program.getDiagnostics().getDiagnostics().toString(), program.getDiagnostics().hasErrors());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            program.printIntermediateCodes(new PrintStream(out, true, "UTF-8"));
+            return out.toString("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileStatsTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.parse;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompileStatsTest {
+    private static final List<String> SOURCE = Arrays.asList(
+            "program p;",
+            "var a : integer;",
+            "begin",
+            "  while a < 10 do a := a + 1",
+            "end.");
+
+    @Test
+    public void directEmissionHasNoCodegenTime() {
+        Program program = new Program(SOURCE);
+        program.setTimed(true);
+        program.parse();
+        CompileStats stats = program.getStats();
+        assertEquals(0, stats.getGenerations());
+        assertTrue(stats.toJson(), stats.toJson().endsWith("\"codegen\":{\"quads\":7,\"backpatches\":2,\"millis\":null}}"));
+        assertTrue(stats.getLexNanos() > 0);
+    }
+
+    @Test
+    public void treeModeHasCodegenTime() {
+        Program program = new Program(SOURCE);
+        program.setTimed(true);
+        program.generate(program.parseTree());
+        CompileStats stats = program.getStats();
+        assertEquals(1, stats.getGenerations());
+        assertTrue(stats.toJson(), stats.toJson().matches(".*\"codegen\":\\{\"quads\":7,\"backpatches\":2,\"millis\":\\d+\\.\\d{3}}}"));
+
+        CompileStats total = new CompileStats();
+        total.add(stats);
+        total.add(stats);
+        assertEquals(2, total.getGenerations());
+        total.clear();
+        assertTrue(total.toJson().endsWith("\"millis\":null}}"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: CompileServerTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.server;
+
+import net.colors_wind.compiler.cache.CompileResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompileServerTest {
+    private CompileServer server;
+
+    @Before
+    public void start() throws IOException {
+        server = new CompileServer(0, 1);
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @After
+    public void stop() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void tooDeepSourceFailsWithoutDroppingTheConnection() throws IOException {
+        StringBuilder sb = new StringBuilder("program p; var a : integer; begin a := ");
+        for (int i = 0; i < 200000; i++)
+            sb.append('(');
+        sb.append('1');
+        for (int i = 0; i < 200000; i++)
+            sb.append(')');
+        byte[] deep = sb.append(" end.").toString().getBytes(StandardCharsets.UTF_8);
+        try (CompileClient client = new CompileClient(server.getPort())) {
+            CompileResult result = client.compile(deep, false);
+            assertEquals(CompileResult.STATUS_FAILED, result.getStatus());
+            assertTrue(result.getDiagnostics(), result.getDiagnostics().contains("嵌套过深"));
+            assertTrue(client.compile(deep, true).isOk());
+            assertTrue(client.compile("program p; begin end.".getBytes(StandardCharsets.UTF_8), false).isOk());
+        }
+        assertEquals(3, server.getRequests());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ColorsWind
+ *
+ * File: TACodeBufferTest.java
+ * Author: ColorsWind
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.colors_wind.compiler.trans;
+
+import net.colors_wind.compiler.parse.Program;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+public class TACodeBufferTest {
+    private final SymbolTable symbolTable = new SymbolTable();
+    private final TACodeBuffer codes = new TACodeBuffer(symbolTable, 4);
+
+    @Test
+    public void mergedListsAreBackpatchedTogether() {
+        Symbol a = symbolTable.enter("a");
+        int first = codes.addJump(OperatorType.JUMP_IF_LESS_THAN, a, 1);
+        int second = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        int other = codes.addJump(OperatorType.JUMP_IF_EQUAL, a, 2);
+        int third = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        int list = codes.merge(codes.merge(first, second), third);
+        assertEquals(TACodeBuffer.EMPTY, codes.merge(TACodeBuffer.EMPTY, TACodeBuffer.EMPTY));
+        assertEquals(list, codes.merge(list, TACodeBuffer.EMPTY));
+        assertEquals(list, codes.merge(TACodeBuffer.EMPTY, list));
+        codes.backpatch(list, 9);
+        codes.backpatch(other, 5);
+        assertEquals(3, codes.getBackpatchCount() - 1);
+        assertEquals("(j<, a, 1, 9)", codes.getCode(first).toString());
+        assertEquals("(j, -, -, 9)", codes.getCode(second).toString());
+        assertEquals("(j=, a, 2, 5)", codes.getCode(other).toString());
+        assertEquals("(j, -, -, 9)", codes.getCode(third).toString());
+        assertEquals(TACodeBuffer.INTEGER, TACodeBuffer.getTag(codes.getOperand(third, 2)));
+    }
+
+    @Test
+    public void listNeverBackpatchedPrintsZero() {
+        int first = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        codes.add(OperatorType.END, "-", "-", "-");
+        int second = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        int list = codes.merge(first, second);
+        assertEquals(TACodeBuffer.LINK, TACodeBuffer.getTag(codes.getOperand(list, 2)));
+        assertEquals("0: (j, -, -, 0)" + System.lineSeparator()
+                + "1: (sys, -, -, -)" + System.lineSeparator()
+                + "2: (j, -, -, 0)" + System.lineSeparator(), print(codes));
+    }
+
+    @Test
+    public void sinkWaitsForTheFirstOpenJump() {
+        List<String> passed = new ArrayList<>();
+        codes.setSink((buffer, pos) -> passed.add(buffer.getCode(pos).toString()));
+        codes.add(OperatorType.PROGRAM, "p", "-", "-");
+        int jump = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        for (int i = 0; i < 10; i++)
+            codes.add(OperatorType.ASSIGNMENT, i, "-", "-");
+        assertEquals(1, passed.size());
+        codes.backpatch(jump, 12);
+        assertEquals(12, passed.size());
+        assertEquals("(j, -, -, 12)", passed.get(1));
+        int open = codes.addJump(OperatorType.JUMP_NO_CONDITION, "-", "-");
+        codes.add(OperatorType.END, "-", "-", "-");
+        assertEquals(12, passed.size());
+        codes.flush();
+        assertEquals(14, passed.size());
+        assertEquals("(j, -, -, 0)", passed.get(open));
+        assertEquals("(sys, -, -, -)", passed.get(13));
+    }
+
+    @Test
+    public void streamedCodesMatchBufferedCodes() {
+        List<String> lines = new ArrayList<>();
+        lines.add("program p;");
+        lines.add("var a, b : integer; f : bool;");
+        lines.add("begin");
+        // far more codes than the buffer holds at first, so it is compacted on the way
+        for (int i = 0; i < 100; i++) {
+            lines.add("while a < 100 and not f do begin");
+            lines.add("  repeat");
+            lines.add("    if a > b or f then begin a := a + 1; f := true end else b := b - 1");
+            lines.add("  until not [f or f) and b < 3;");
+            lines.add("  if f then repeat a := a * 2 until a > 50");
+            lines.add("end;");
+        }
+        lines.add("a := 0");
+        lines.add("end.");
+        for (boolean ast : new boolean[]{false, true}) {
+            Program buffered = new Program(lines);
+            compile(buffered, ast);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = printStream(bytes);
+            Program streamed = new Program(lines);
+            streamed.setSink(TACodeSink.printTo(out));
+            compile(streamed, ast);
+            out.flush();
+            String expected = print(buffered);
+            assertEquals(expected, toString(bytes));
+            assertEquals(buffered.nextPos(), expected.split(System.lineSeparator()).length);
+        }
+    }
+
+    @Test
+    public void constantsAreKeptOnce() {
+        int first = codes.add(OperatorType.ASSIGNMENT, -1, "TRUE", "-");
+        int second = codes.add(OperatorType.ASSIGNMENT, -1, "TRUE", "-");
+        int third = codes.add(OperatorType.ASSIGNMENT, -2, "FALSE", "-");
+        for (int operand = 0; operand < 2; operand++) {
+            assertEquals(TACodeBuffer.CONSTANT, TACodeBuffer.getTag(codes.getOperand(first, operand)));
+            assertEquals(codes.getOperand(first, operand), codes.getOperand(second, operand));
+            assertFalse(codes.getOperand(first, operand) == codes.getOperand(third, operand));
+        }
+        assertEquals("(:=, -1, TRUE, -)", codes.getCode(second).toString());
+        assertEquals("(:=, -2, FALSE, -)", codes.getCode(third).toString());
+        // a constant larger than the payload goes to the pool instead of being cut
+        int large = codes.add(OperatorType.ASSIGNMENT, Integer.MAX_VALUE, "-", "-");
+        assertEquals(TACodeBuffer.CONSTANT, TACodeBuffer.getTag(codes.getOperand(large, 0)));
+        assertEquals("(:=, " + Integer.MAX_VALUE + ", -, -)", codes.getCode(large).toString());
+    }
+
+    @Test
+    public void operandAbovePayloadIsRejected() {
+        Symbol symbol = new Symbol(1 << 29, "x");
+        assertThrows(IllegalArgumentException.class,
+                () -> codes.add(OperatorType.ASSIGNMENT, 1, "-", symbol));
+        assertThrows(IllegalArgumentException.class,
+                () -> codes.addJump(OperatorType.JUMP_IF_EQUAL, symbol, "TRUE"));
+        assertEquals(0, codes.size());
+    }
+
+    private static void compile(Program program, boolean ast) {
+        if (ast)
+            program.generate(program.parseTree());
+        else
+            program.parse();
+        assertFalse(program.getDiagnostics().getDiagnostics().toString(), program.getDiagnostics().hasErrors());
+    }
+
+    private static String print(TACodeBuffer codes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = printStream(bytes);
+        codes.print(out);
+        out.flush();
+        return toString(bytes);
+    }
+
+    private static String print(Program program) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = printStream(bytes);
+        program.printIntermediateCodes(out);
+        out.flush();
+        return toString(bytes);
+    }
+
+    private static PrintStream printStream(ByteArrayOutputStream bytes) {
+        try {
+            return new PrintStream(bytes, false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String toString(ByteArrayOutputStream bytes) {
+        try {
+            return bytes.toString("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}